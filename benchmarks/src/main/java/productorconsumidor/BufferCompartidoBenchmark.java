@@ -0,0 +1,124 @@
+package productorconsumidor;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+
+/**
+ * Rendimiento de poner y tomar en los dos motores de {@link BufferCompartido},
+ * con 1, 2 y 4 productores y consumidores por grupo y distintas capacidades.
+ *
+ * Todos los productos son pares, así que cada uno pasa por una sola categoría.
+ * Las operaciones esperan a lo sumo {@link #ESPERA_MS} y se reintentan mientras
+ * dure la medición, para que al terminar una iteración ningún hilo quede
+ * bloqueado con el buffer lleno o vacío.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class BufferCompartidoBenchmark {
+    private static final long ESPERA_MS = 1;
+    private static final long PRODUCTO = ProductoEmpaquetado.empaquetar(42);
+
+    @Param({"semaforos", "anillo"})
+    public String motor;
+
+    @Param({"1", "16", "1024"})
+    public int capacidad;
+
+    private BufferCompartido buffer;
+
+    @Setup(Level.Trial)
+    public void crearBuffer() {
+        buffer = motor.equals("anillo") ? new BufferAnillo(capacidad) : new BufferSemaforos(capacidad);
+    }
+
+    @Setup(Level.Iteration)
+    public void vaciarBuffer() {
+        buffer.limpiar();
+    }
+
+    /**
+     * Destino propio de cada consumidor
+     */
+    @State(Scope.Thread)
+    public static class Destino {
+        final long[] productos = new long[1];
+    }
+
+    @Benchmark
+    @Group("uno")
+    @GroupThreads(1)
+    public boolean poner1(Control control) throws InterruptedException {
+        return poner(control);
+    }
+
+    @Benchmark
+    @Group("uno")
+    @GroupThreads(1)
+    public long tomar1(Destino destino, Control control) throws InterruptedException {
+        return tomar(destino, control);
+    }
+
+    @Benchmark
+    @Group("dos")
+    @GroupThreads(2)
+    public boolean poner2(Control control) throws InterruptedException {
+        return poner(control);
+    }
+
+    @Benchmark
+    @Group("dos")
+    @GroupThreads(2)
+    public long tomar2(Destino destino, Control control) throws InterruptedException {
+        return tomar(destino, control);
+    }
+
+    @Benchmark
+    @Group("cuatro")
+    @GroupThreads(4)
+    public boolean poner4(Control control) throws InterruptedException {
+        return poner(control);
+    }
+
+    @Benchmark
+    @Group("cuatro")
+    @GroupThreads(4)
+    public long tomar4(Destino destino, Control control) throws InterruptedException {
+        return tomar(destino, control);
+    }
+
+    private boolean poner(Control control) throws InterruptedException {
+        while (!control.stopMeasurement) {
+            if (buffer.ponerEmpaquetado(PRODUCTO, ESPERA_MS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long tomar(Destino destino, Control control) throws InterruptedException {
+        while (!control.stopMeasurement) {
+            if (buffer.tomarLoteEmpaquetado("par", destino.productos, ESPERA_MS, TimeUnit.MILLISECONDS) > 0) {
+                return destino.productos[0];
+            }
+        }
+        return ProductoEmpaquetado.NINGUNO;
+    }
+}
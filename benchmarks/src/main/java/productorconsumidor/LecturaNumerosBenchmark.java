@@ -0,0 +1,119 @@
+package productorconsumidor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lectura de números como la hace el {@link Productor}: recorrer el archivo con
+ * {@link LectorMapeado} y, en el segundo caso, además clasificar cada número.
+ * Los casos binarios leen los mismos números de lotes en el
+ * {@link FormatoBinario}, clasificándolos o con la clasificación guardada.
+ * Los resultados son por número leído.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LecturaNumerosBenchmark {
+    private static final int LINEAS = 1_000_000;
+    private static final int LOTE = 256;
+
+    private Path archivo;
+    private Path archivoInt32;
+    private Path archivoVarint;
+    private final long[] lote = new long[LOTE];
+
+    @Setup
+    public void generarArchivo() throws IOException {
+        archivo = Files.createTempFile("numeros", ".txt");
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        archivoInt32 = Files.createTempFile("numeros", ".bin");
+        archivoVarint = Files.createTempFile("numeros", ".bin");
+        try (Writer escritor = Files.newBufferedWriter(archivo, StandardCharsets.US_ASCII);
+             FormatoBinario.Escritor int32 = new FormatoBinario.Escritor(archivoInt32, FormatoBinario.INT32, false);
+             FormatoBinario.Escritor varint = new FormatoBinario.Escritor(archivoVarint, FormatoBinario.VARINT, true)) {
+            for (int i = 0; i < LINEAS; i++) {
+                int valor = aleatorio.nextInt(1, 1_000_001);
+                escritor.write(Integer.toString(valor));
+                escritor.write('\n');
+                int32.escribir(valor);
+                varint.escribir(valor);
+            }
+        }
+    }
+
+    @TearDown
+    public void borrarArchivo() throws IOException {
+        Files.deleteIfExists(archivo);
+        Files.deleteIfExists(archivoInt32);
+        Files.deleteIfExists(archivoVarint);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINEAS)
+    public long leer() throws IOException {
+        long suma = 0;
+        try (LectorMapeado lector = new LectorMapeado(archivo)) {
+            while (lector.siguiente()) {
+                suma += lector.valor();
+            }
+        }
+        return suma;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINEAS)
+    public long leerYEmpaquetar() throws IOException {
+        long combinado = 0;
+        try (LectorMapeado lector = new LectorMapeado(archivo)) {
+            while (lector.siguiente()) {
+                combinado ^= ProductoEmpaquetado.empaquetar(lector.valor());
+            }
+        }
+        return combinado;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINEAS)
+    public long leerBinarioYEmpaquetar() throws IOException {
+        return leerLotes(archivoInt32);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINEAS)
+    public long leerBinarioClasificado() throws IOException {
+        return leerLotes(archivoVarint);
+    }
+
+    private long leerLotes(Path binario) throws IOException {
+        long combinado = 0;
+        try (LectorBinario lector = new LectorBinario(binario)) {
+            int cantidad;
+            while ((cantidad = lector.leer(lote, LOTE)) > 0) {
+                for (int i = 0; i < cantidad; i++) {
+                    combinado ^= lote[i];
+                }
+            }
+        }
+        return combinado;
+    }
+}
@@ -0,0 +1,80 @@
+package productorconsumidor;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo de clasificar un número: construir un {@link Producto}, empaquetarlo y
+ * consultar {@link Primalidad}. El rango "criba" usa valores dentro de la criba
+ * por defecto y "grandes" valores por encima, que se resuelven con Miller-Rabin.
+ * Los valores se repiten cada "distintos"; con menos distintos que entradas de
+ * la caché de primos, las consultas repetidas miden los aciertos de la caché.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProductoBenchmark {
+    private static final int CANTIDAD_VALORES = 1 << 16;
+
+    @Param({"criba", "grandes"})
+    public String rango;
+
+    @Param({"0", "4096"})
+    public int cachePrimos;
+
+    @Param({"65536", "1024"})
+    public int distintos;
+
+    private int[] valores;
+    private int siguiente;
+    private Primalidad primalidad;
+
+    @Setup
+    public void preparar() {
+        Primalidad.configurar(Primalidad.LIMITE_POR_DEFECTO, cachePrimos);
+        primalidad = Primalidad.compartida();
+
+        int desde = rango.equals("criba") ? 0 : primalidad.getLimite() + 1;
+        int hasta = rango.equals("criba") ? primalidad.getLimite() + 1 : Integer.MAX_VALUE;
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        valores = new int[CANTIDAD_VALORES];
+        int repetidos = Math.min(distintos, CANTIDAD_VALORES);
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = i < repetidos ? aleatorio.nextInt(desde, hasta) : valores[i % repetidos];
+        }
+    }
+
+    private int siguienteValor() {
+        siguiente = (siguiente + 1) & (CANTIDAD_VALORES - 1);
+        return valores[siguiente];
+    }
+
+    @Benchmark
+    public Producto construirProducto() {
+        return new Producto(siguienteValor());
+    }
+
+    @Benchmark
+    public long empaquetar() {
+        return ProductoEmpaquetado.empaquetar(siguienteValor());
+    }
+
+    @Benchmark
+    public boolean esPrimo() {
+        return primalidad.esPrimo(siguienteValor());
+    }
+}
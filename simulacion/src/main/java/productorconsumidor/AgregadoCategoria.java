@@ -0,0 +1,234 @@
+package productorconsumidor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estadísticas acumuladas de los productos consumidos de una categoría: cantidad,
+ * suma en long, mínimo, máximo, media e histograma por orden de magnitud.
+ *
+ * Todos los consumidores del mismo tipo comparten una instancia. Los contadores
+ * son {@link LongAdder} y {@link LongAccumulator}, que reparten las
+ * actualizaciones concurrentes en celdas por hilo, y cada lote se resume
+ * localmente antes de publicarse, así que registrar no compite entre hilos.
+ * {@link #instantanea()} suma las celdas sin detener a los consumidores.
+ */
+class AgregadoCategoria {
+    /**
+     * Cubetas del histograma. La cubeta CUBETA_CERO es el 0; los positivos con b
+     * bits significativos van a CUBETA_CERO + b y los negativos cuyo valor
+     * absoluto tiene b bits a CUBETA_CERO - b.
+     */
+    public static final int CUBETAS = 64;
+    public static final int CUBETA_CERO = 32;
+
+    private final String tipo;
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final LongAccumulator minimo = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    private final LongAdder[] histograma = new LongAdder[CUBETAS];
+
+    public AgregadoCategoria(String tipo) {
+        this.tipo = tipo;
+        for (int i = 0; i < CUBETAS; i++) {
+            histograma[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Un agregado por cada tipo de consumidor, en orden par, impar, primo
+     */
+    public static Map<String, AgregadoCategoria> porTipo() {
+        Map<String, AgregadoCategoria> agregados = new LinkedHashMap<>();
+        for (String tipo : new String[] {"par", "impar", "primo"}) {
+            agregados.put(tipo, new AgregadoCategoria(tipo));
+        }
+        return agregados;
+    }
+
+    /**
+     * Acumula los primeros cantidad productos empaquetados del arreglo
+     *
+     * @param cubetasLote CUBETAS contadores en cero, propios del hilo que llama,
+     *                    donde se cuenta el histograma del lote; quedan en cero
+     * @return la suma de sus valores, para la suma propia del consumidor
+     */
+    public long registrar(long[] productos, int cantidad, int[] cubetasLote) {
+        if (cantidad <= 0) {
+            return 0;
+        }
+        if (cantidad == 1) {
+            int valor = ProductoEmpaquetado.valor(productos[0]);
+            histograma[cubeta(valor)].increment();
+            this.cantidad.increment();
+            suma.add(valor);
+            minimo.accumulate(valor);
+            maximo.accumulate(valor);
+            return valor;
+        }
+
+        // El histograma del lote se cuenta aparte y se publica una vez por cubeta usada
+        int primeraCubeta = CUBETAS;
+        int ultimaCubeta = -1;
+        long sumaLote = 0;
+        long minimoLote = Long.MAX_VALUE;
+        long maximoLote = Long.MIN_VALUE;
+        for (int i = 0; i < cantidad; i++) {
+            int valor = ProductoEmpaquetado.valor(productos[i]);
+            sumaLote += valor;
+            minimoLote = Math.min(minimoLote, valor);
+            maximoLote = Math.max(maximoLote, valor);
+            int cubeta = cubeta(valor);
+            cubetasLote[cubeta]++;
+            primeraCubeta = Math.min(primeraCubeta, cubeta);
+            ultimaCubeta = Math.max(ultimaCubeta, cubeta);
+        }
+
+        for (int i = primeraCubeta; i <= ultimaCubeta; i++) {
+            if (cubetasLote[i] != 0) {
+                histograma[i].add(cubetasLote[i]);
+                cubetasLote[i] = 0;
+            }
+        }
+        this.cantidad.add(cantidad);
+        suma.add(sumaLote);
+        minimo.accumulate(minimoLote);
+        maximo.accumulate(maximoLote);
+        return sumaLote;
+    }
+
+    /**
+     * Copia consistente por campo de los valores acumulados. Si hay consumidores
+     * activos, los campos pueden reflejar lotes distintos.
+     */
+    public Resumen instantanea() {
+        long[] cubetas = new long[CUBETAS];
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas[i] = histograma[i].sum();
+        }
+        return new Resumen(tipo, cantidad.sum(), suma.sum(), minimo.get(), maximo.get(), cubetas);
+    }
+
+    /**
+     * Vuelve a cero; debe llamarse con los consumidores detenidos
+     */
+    public void reiniciar() {
+        cantidad.reset();
+        suma.reset();
+        minimo.reset();
+        maximo.reset();
+        for (LongAdder cubeta : histograma) {
+            cubeta.reset();
+        }
+    }
+
+    /**
+     * Reemplaza los valores por los de un resumen, por ejemplo leído de un punto
+     * de control; debe llamarse con los consumidores detenidos
+     */
+    public void restaurar(Resumen resumen) {
+        reiniciar();
+        cantidad.add(resumen.getCantidad());
+        suma.add(resumen.getSuma());
+        if (resumen.getCantidad() > 0) {
+            minimo.accumulate(resumen.getMinimo());
+            maximo.accumulate(resumen.getMaximo());
+        }
+        for (int i = 0; i < CUBETAS; i++) {
+            histograma[i].add(resumen.getCubeta(i));
+        }
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Cubeta del histograma para un valor
+     */
+    public static int cubeta(int valor) {
+        if (valor >= 0) {
+            return CUBETA_CERO + (32 - Integer.numberOfLeadingZeros(valor));
+        }
+        // En long para que el valor absoluto de Integer.MIN_VALUE no desborde
+        return CUBETA_CERO - (64 - Long.numberOfLeadingZeros(-(long) valor));
+    }
+
+    /**
+     * Valor de menor magnitud que cae en la cubeta indicada
+     */
+    public static long limiteInferior(int cubeta) {
+        int bits = cubeta - CUBETA_CERO;
+        if (bits == 0) {
+            return 0;
+        }
+        return bits > 0 ? 1L << (bits - 1) : -(1L << (-bits - 1));
+    }
+
+    /**
+     * Valores de un agregado en un instante
+     */
+    static final class Resumen {
+        private final String tipo;
+        private final long cantidad;
+        private final long suma;
+        private final long minimo;
+        private final long maximo;
+        private final long[] histograma;
+
+        Resumen(String tipo, long cantidad, long suma, long minimo, long maximo, long[] histograma) {
+            this.tipo = tipo;
+            this.cantidad = cantidad;
+            this.suma = suma;
+            this.minimo = minimo;
+            this.maximo = maximo;
+            this.histograma = histograma;
+        }
+
+        public String getTipo() {
+            return tipo;
+        }
+
+        public long getCantidad() {
+            return cantidad;
+        }
+
+        public long getSuma() {
+            return suma;
+        }
+
+        /**
+         * Menor valor registrado, o 0 si no hay ninguno
+         */
+        public long getMinimo() {
+            return cantidad == 0 ? 0 : minimo;
+        }
+
+        /**
+         * Mayor valor registrado, o 0 si no hay ninguno
+         */
+        public long getMaximo() {
+            return cantidad == 0 ? 0 : maximo;
+        }
+
+        public double getMedia() {
+            return cantidad == 0 ? 0.0 : (double) suma / cantidad;
+        }
+
+        /**
+         * Cantidad de valores en la cubeta indicada (ver {@link AgregadoCategoria#cubeta})
+         */
+        public long getCubeta(int cubeta) {
+            return histograma[cubeta];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: cantidad %d, suma %d, media %.2f, mín %d, máx %d",
+                tipo, cantidad, suma, getMedia(), getMinimo(), getMaximo());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package productorconsumidor;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ajusta la capacidad de un {@link BufferCompartido} mientras corre la
+ * simulación, entre un mínimo y un máximo. Muestrea la ocupación cada pocos
+ * milisegundos y en cada período decide:
+ *
+ * - duplicar la capacidad si el buffer estuvo lleno en buena parte de las
+ *   muestras, o si los productores esperaron por espacio más que los
+ *   consumidores por productos: más espacio absorbe las ráfagas
+ * - reducirla a la mitad si la ocupación media fue baja y los productores
+ *   esperaron menos que los consumidores: el cuello de botella es la
+ *   producción y las ranuras de sobra no aportan rendimiento
+ *
+ * Las esperas salen de {@link MetricasBuffer}; sin métricas solo se usa la ocupación.
+ */
+class AjusteCapacidad {
+    private static final long MUESTREO_MS = 5;
+    private static final double FRACCION_LLENO = 0.5;
+    private static final double OCUPACION_ALTA = 0.75;
+    private static final double OCUPACION_BAJA = 0.25;
+
+    private final BufferCompartido buffer;
+    private final MetricasBuffer metricas;
+    private final int minima;
+    private final int maxima;
+    private final int muestrasPorPeriodo;
+
+    // Solo los usa el hilo del ajuste
+    private int muestras;
+    private int muestrasLleno;
+    private double sumaOcupacion;
+    private long esperaProductores;
+    private long esperaConsumidores;
+
+    private volatile int ajustes;
+    private ScheduledExecutorService ejecutor;
+
+    /**
+     * @param metricas null si el buffer no está instrumentado
+     * @param periodoMs cada cuánto se decide un ajuste
+     */
+    public AjusteCapacidad(BufferCompartido buffer, MetricasBuffer metricas, int minima, int maxima, long periodoMs) {
+        this.buffer = buffer;
+        this.metricas = metricas;
+        this.minima = Math.max(1, minima);
+        this.maxima = Math.min(maxima, buffer.getCapacidadMaxima());
+        this.muestrasPorPeriodo = (int) Math.max(1, periodoMs / MUESTREO_MS);
+    }
+
+    /**
+     * Empieza a muestrear desde un hilo demonio
+     */
+    public synchronized void iniciar() {
+        if (ejecutor != null) {
+            return;
+        }
+        if (metricas != null) {
+            esperaProductores = metricas.getNanosEsperaProductores();
+            esperaConsumidores = metricas.getNanosEsperaConsumidores();
+        }
+        ejecutor = Planificador.demonio("ajuste-capacidad");
+        ejecutor.scheduleAtFixedRate(this::muestrear, MUESTREO_MS, MUESTREO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cantidad de cambios de capacidad hechos
+     */
+    public int getAjustes() {
+        return ajustes;
+    }
+
+    private void muestrear() {
+        if (buffer.estaCerrado()) {
+            return;
+        }
+        int capacidad = buffer.getCapacidad();
+        int tamano = buffer.getTamano();
+        muestras++;
+        sumaOcupacion += (double) tamano / capacidad;
+        if (tamano >= capacidad) {
+            muestrasLleno++;
+        }
+        if (muestras >= muestrasPorPeriodo) {
+            decidir(capacidad);
+            muestras = 0;
+            muestrasLleno = 0;
+            sumaOcupacion = 0;
+        }
+    }
+
+    private void decidir(int capacidad) {
+        double ocupacion = sumaOcupacion / muestras;
+        double lleno = (double) muestrasLleno / muestras;
+
+        // Esperas del período, en nanosegundos sumados entre todos los hilos
+        long productores = 0;
+        long consumidores = 0;
+        if (metricas != null) {
+            long totalProductores = metricas.getNanosEsperaProductores();
+            long totalConsumidores = metricas.getNanosEsperaConsumidores();
+            productores = totalProductores - esperaProductores;
+            consumidores = totalConsumidores - esperaConsumidores;
+            esperaProductores = totalProductores;
+            esperaConsumidores = totalConsumidores;
+        }
+
+        int nueva = capacidad;
+        if (lleno >= FRACCION_LLENO || (ocupacion >= OCUPACION_ALTA && productores > consumidores)) {
+            nueva = Math.min(maxima, capacidad * 2);
+        } else if (ocupacion < OCUPACION_BAJA && productores <= consumidores) {
+            nueva = Math.max(minima, capacidad / 2);
+        }
+        if (nueva != capacidad && buffer.ajustarCapacidad(nueva) != capacidad) {
+            ajustes++;
+        }
+    }
+}
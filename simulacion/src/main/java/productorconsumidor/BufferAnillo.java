@@ -0,0 +1,774 @@
+package productorconsumidor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Buffer compartido sin bloqueos basado en anillos preasignados.
+ *
+ * Los productos se guardan en un arreglo fijo de ranuras. Los índices de las
+ * ranuras libres y los de cada categoría (par, impar, primo) circulan por colas
+ * circulares MPMC que avanzan con CAS sobre sus secuencias de cabeza y cola, de
+ * modo que no existe un mutex global ni se reserva memoria al insertar. Igual
+ * que en {@link BufferSemaforos}, un producto se entrega a todas las categorías
+ * a las que pertenece.
+ *
+ * Solo la espera con una cola vacía usa un cerrojo: quien espera se anota como
+ * durmiente y se bloquea en una condición, y quien ofrece un índice solo toma
+ * el cerrojo para despertarlo si hay durmientes. Así miles de consumidores
+ * inactivos no consumen procesador y {@link #cerrar()} los libera de inmediato.
+ */
+class BufferAnillo implements BufferCompartido {
+    private static final int PAR = 0;
+    private static final int IMPAR = 1;
+    private static final int PRIMO = 2;
+
+    // Vueltas de giro activo y de cesión del procesador antes de bloquearse
+    private static final int GIROS = 100;
+    private static final int CESIONES = 100;
+
+    // Se preasignan ranuras para la capacidad máxima. Las que exceden la
+    // capacidad efectiva no circulan: quedan retenidas fuera de la cola de libres.
+    private final int capacidadMaxima;
+    private volatile int capacidad;
+    private final int[] retenidas;
+    private int cantidadRetenidas;
+
+    // Ranuras preasignadas con los productos empaquetados y cantidad de
+    // categorías que aún no han visto cada ranura (0 = libre)
+    private final AtomicLongArray ranuras;
+    private final AtomicIntegerArray pendientes;
+
+    // Orden de inserción de cada ranura, publicado junto con el producto, para
+    // que las políticas de desborde encuentren el más antiguo
+    private final long[] orden;
+    private final AtomicLong siguienteOrden = new AtomicLong();
+
+    // Índices de ranuras libres y de ranuras ocupadas por categoría
+    private final ColaIndices libres;
+    private final ColaIndices[] categorias;
+
+    private volatile boolean cerrado = false;
+
+    // Instrumentación opcional (null = desactivada) e instante de inserción de
+    // cada ranura, publicado junto con el producto
+    private MetricasBuffer metricas;
+    private long[] marcas;
+
+    public BufferAnillo(int capacidad) {
+        this(capacidad, capacidad);
+    }
+
+    /**
+     * Buffer que empieza con la capacidad indicada y puede crecer con
+     * {@link #ajustarCapacidad} hasta capacidadMaxima
+     */
+    public BufferAnillo(int capacidad, int capacidadMaxima) {
+        this.capacidadMaxima = capacidadMaxima;
+        this.capacidad = Math.max(1, Math.min(capacidad, capacidadMaxima));
+        this.ranuras = new AtomicLongArray(capacidadMaxima);
+        this.pendientes = new AtomicIntegerArray(capacidadMaxima);
+        this.orden = new long[capacidadMaxima];
+        this.retenidas = new int[capacidadMaxima];
+
+        this.libres = new ColaIndices(capacidadMaxima);
+        this.categorias = new ColaIndices[] {
+            new ColaIndices(capacidadMaxima),
+            new ColaIndices(capacidadMaxima),
+            new ColaIndices(capacidadMaxima)
+        };
+
+        cargarLibres();
+    }
+
+    /**
+     * Ofrece en orden las ranuras de la capacidad efectiva y retiene el resto
+     */
+    private void cargarLibres() {
+        for (int i = 0; i < capacidad; i++) {
+            libres.ofrecer(i);
+        }
+        cantidadRetenidas = 0;
+        for (int i = capacidadMaxima - 1; i >= capacidad; i--) {
+            retenidas[cantidadRetenidas++] = i;
+        }
+    }
+
+    @Override
+    public boolean ponerEmpaquetado(long producto) throws InterruptedException {
+        return ponerConEspera(producto, Long.MAX_VALUE);
+    }
+
+    @Override
+    public boolean ponerEmpaquetado(long producto, long espera, TimeUnit unidad) throws InterruptedException {
+        return ponerConEspera(producto, unidad.toNanos(espera));
+    }
+
+    private boolean ponerConEspera(long producto, long esperaNanos) throws InterruptedException {
+        // Esperar a que haya una ranura libre
+        MetricasBuffer m = metricas;
+        long inicio = m != null ? System.nanoTime() : 0;
+        int ranura = esperarIndice(libres, esperaNanos);
+        if (ranura < 0) {
+            return false;
+        }
+        if (cerrado) {
+            libres.ofrecer(ranura); // Ya no hay consumidores que la vayan a vaciar
+            return false;
+        }
+
+        // Las escrituras se publican con la oferta en las colas de categoría
+        if (m != null) {
+            marcas[ranura] = m.registrarEsperaEspacio(inicio);
+            m.registrarPuestos(1);
+        }
+        ranuras.setPlain(ranura, producto);
+        orden[ranura] = siguienteOrden.getAndIncrement();
+        pendientes.set(ranura, ProductoEmpaquetado.contarCategorias(producto));
+
+        // Publicar la ranura en la cola de cada categoría a la que pertenece.
+        // Las colas de categoría tienen al menos tantas posiciones como ranuras,
+        // así que la oferta nunca falla.
+        if (ProductoEmpaquetado.esPar(producto)) {
+            categorias[PAR].ofrecer(ranura);
+        }
+        if (ProductoEmpaquetado.esImpar(producto)) {
+            categorias[IMPAR].ofrecer(ranura);
+        }
+        if (ProductoEmpaquetado.esPrimo(producto)) {
+            categorias[PRIMO].ofrecer(ranura);
+        }
+        return true;
+    }
+
+    /**
+     * Sin mutex no hay sección crítica que agrupar: cada producto reserva su
+     * ranura con CAS y solo se espera cuando el buffer está lleno
+     */
+    @Override
+    public boolean ponerLoteEmpaquetado(long[] productos, int cantidad) throws InterruptedException {
+        for (int i = 0; i < cantidad; i++) {
+            if (!ponerEmpaquetado(productos[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int ponerLoteEmpaquetado(long[] productos, int desde, int cantidad, long espera, TimeUnit unidad)
+            throws InterruptedException {
+        // Solo el primero espera; los demás toman las ranuras que ya estén libres
+        long esperaNanos = unidad.toNanos(espera);
+        int puestos = 0;
+        while (puestos < cantidad && ponerConEspera(productos[desde + puestos], puestos == 0 ? esperaNanos : 0)) {
+            puestos++;
+        }
+        return puestos;
+    }
+
+    @Override
+    public long tomarEmpaquetado(String tipo) throws InterruptedException {
+        int categoria = indiceCategoria(tipo);
+        long ahora = marcaTiempo();
+        int ranura = esperarIndice(categorias[categoria], Long.MAX_VALUE);
+        if (ranura < 0) {
+            return ProductoEmpaquetado.NINGUNO; // Cerrado y sin productos del tipo
+        }
+        if (metricas != null) {
+            ahora = metricas.registrarEsperaCategoria(categoria, ahora);
+        }
+        return leerYLiberar(ranura, categoria, ahora);
+    }
+
+    @Override
+    public int tomarLoteEmpaquetado(String tipo, long[] destino) throws InterruptedException {
+        return tomarLoteConEspera(tipo, destino, Long.MAX_VALUE);
+    }
+
+    @Override
+    public int tomarLoteEmpaquetado(String tipo, long[] destino, long espera, TimeUnit unidad)
+            throws InterruptedException {
+        return tomarLoteConEspera(tipo, destino, unidad.toNanos(espera));
+    }
+
+    private int tomarLoteConEspera(String tipo, long[] destino, long esperaNanos) throws InterruptedException {
+        int categoria = indiceCategoria(tipo);
+        ColaIndices cola = categorias[categoria];
+
+        // Esperar el primero y recoger sin esperar los que ya estén publicados
+        int cantidad = 0;
+        long ahora = marcaTiempo();
+        int ranura = esperarIndice(cola, esperaNanos);
+        if (ranura < 0) {
+            return cerrado ? CERRADO : 0;
+        }
+        if (metricas != null) {
+            ahora = metricas.registrarEsperaCategoria(categoria, ahora);
+        }
+        while (true) {
+            destino[cantidad++] = leerYLiberar(ranura, categoria, ahora);
+            if (cantidad == destino.length || (ranura = cola.sacar()) < 0) {
+                return cantidad;
+            }
+        }
+    }
+
+    @Override
+    public int intentarTomarLoteEmpaquetado(String tipo, long[] destino) {
+        int categoria = indiceCategoria(tipo);
+        ColaIndices cola = categorias[categoria];
+        boolean cerradoAntes = cerrado;
+        long ahora = marcaTiempo();
+
+        int cantidad = 0;
+        int ranura;
+        while (cantidad < destino.length && (ranura = cola.sacar()) >= 0) {
+            destino[cantidad++] = leerYLiberar(ranura, categoria, ahora);
+        }
+        // Cerrado antes de encontrar la cola vacía: ya no llegarán más productos
+        return cantidad == 0 && cerradoAntes ? CERRADO : cantidad;
+    }
+
+    @Override
+    public void cerrar() {
+        cerrado = true;
+        libres.despertarTodos();
+        for (ColaIndices cola : categorias) {
+            cola.despertarTodos();
+        }
+    }
+
+    @Override
+    public boolean estaCerrado() {
+        return cerrado;
+    }
+
+    /**
+     * Recorre las colas de categoría desde la cabeza, del más antiguo al más
+     * nuevo, y se detiene al juntar maximo productos. Las colas siguen avanzando
+     * mientras tanto, así que la vista es aproximada.
+     */
+    @Override
+    public List<Producto> getElementos(int maximo) {
+        List<Producto> copia = new ArrayList<>();
+        int[] posiciones = new int[categorias.length];
+        while (copia.size() < maximo) {
+            // El más antiguo entre los siguientes de cada cola; una ranura
+            // pendiente para varias categorías se muestra una vez
+            int ranura = -1;
+            for (int categoria = 0; categoria < categorias.length; categoria++) {
+                int candidata = categorias[categoria].espiar(posiciones[categoria]);
+                if (candidata >= 0 && (ranura < 0 || orden[candidata] < orden[ranura])) {
+                    ranura = candidata;
+                }
+            }
+            if (ranura < 0) {
+                break;
+            }
+            for (int categoria = 0; categoria < categorias.length; categoria++) {
+                if (categorias[categoria].espiar(posiciones[categoria]) == ranura) {
+                    posiciones[categoria]++;
+                }
+            }
+            copia.add(new Producto(ranuras.getOpaque(ranura)));
+        }
+        return copia;
+    }
+
+    @Override
+    public int getTamano() {
+        return Math.max(0, capacidad - libres.tamano());
+    }
+
+    @Override
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    @Override
+    public int getCapacidadMaxima() {
+        return capacidadMaxima;
+    }
+
+    /**
+     * Crecer devuelve ranuras retenidas a la cola de libres; reducir saca de
+     * ella las que estén libres en ese momento
+     */
+    @Override
+    public synchronized int ajustarCapacidad(int nueva) {
+        nueva = Math.max(1, Math.min(nueva, capacidadMaxima));
+        if (cerrado) {
+            return capacidad;
+        }
+        while (capacidad < nueva) {
+            libres.ofrecer(retenidas[--cantidadRetenidas]);
+            capacidad++;
+        }
+        int ranura;
+        while (capacidad > nueva && (ranura = libres.sacar()) >= 0) {
+            retenidas[cantidadRetenidas++] = ranura;
+            capacidad--;
+        }
+        return capacidad;
+    }
+
+    @Override
+    public int getPendientes(String tipo) {
+        return categorias[indiceCategoria(tipo)].tamano();
+    }
+
+    /**
+     * Sin un cerrojo que congele las colas, el más antiguo se busca espiando el
+     * frente de cada categoría y se saca de todas las colas que lo tengan al
+     * frente, solo si sigue ahí; si un consumidor se adelanta en todas se vuelve
+     * a buscar. Si una de sus categorías ya no lo tiene al frente, esa lo recibe
+     * igual: el producto devuelto lleva solo las categorías descartadas.
+     */
+    @Override
+    public long descartarMasAntiguo() {
+        while (true) {
+            int masAntigua = -1;
+            for (ColaIndices cola : categorias) {
+                int ranura = cola.espiar();
+                if (ranura >= 0 && (masAntigua < 0 || orden[ranura] < orden[masAntigua])) {
+                    masAntigua = ranura;
+                }
+            }
+            if (masAntigua < 0) {
+                return ProductoEmpaquetado.NINGUNO;
+            }
+
+            long producto = ProductoEmpaquetado.NINGUNO;
+            long descartadas = 0;
+            int sacadas = 0;
+            for (int categoria = 0; categoria < categorias.length; categoria++) {
+                if (categorias[categoria].sacarSi(masAntigua)) {
+                    if (sacadas++ == 0) {
+                        // Mientras no se descuente esta entrada la ranura no se reutiliza
+                        producto = ranuras.getPlain(masAntigua);
+                    }
+                    descartadas |= ProductoEmpaquetado.categoria(categoria);
+                }
+            }
+            for (int i = 0; i < sacadas; i++) {
+                liberarSiUltima(masAntigua);
+            }
+            if (sacadas > 0) {
+                return ProductoEmpaquetado.conCategorias(producto, descartadas);
+            }
+        }
+    }
+
+    @Override
+    public long descartarMasAntiguo(String tipo) {
+        int ranura = categorias[indiceCategoria(tipo)].sacar();
+        if (ranura < 0) {
+            return ProductoEmpaquetado.NINGUNO;
+        }
+        long producto = ranuras.getPlain(ranura);
+        liberarSiUltima(ranura);
+        return producto;
+    }
+
+    /**
+     * Recorre las colas de categoría sin detenerlas, así que solo es exacta
+     * cuando nadie pone ni toma productos
+     */
+    @Override
+    public long[] copiarPendientes() {
+        long[] categoriasPendientes = new long[capacidadMaxima];
+        List<Integer> ocupadas = new ArrayList<>();
+        for (int categoria = 0; categoria < categorias.length; categoria++) {
+            for (int ranura : categorias[categoria].copiar()) {
+                if (categoriasPendientes[ranura] == 0) {
+                    ocupadas.add(ranura);
+                }
+                categoriasPendientes[ranura] |= ProductoEmpaquetado.categoria(categoria);
+            }
+        }
+
+        ocupadas.sort(Comparator.comparingLong(ranura -> orden[ranura]));
+        long[] copia = new long[ocupadas.size()];
+        for (int i = 0; i < copia.length; i++) {
+            int ranura = ocupadas.get(i);
+            copia[i] = ProductoEmpaquetado.conCategorias(ranuras.get(ranura), categoriasPendientes[ranura]);
+        }
+        return copia;
+    }
+
+    /**
+     * Sin mutex, la espera por él no se mide y su histograma queda vacío
+     */
+    @Override
+    public void instrumentar(MetricasBuffer metricas) {
+        this.marcas = new long[capacidadMaxima];
+        this.metricas = metricas;
+    }
+
+    /**
+     * Limpia el buffer y lo vuelve a abrir. Debe llamarse con el productor y los
+     * consumidores detenidos.
+     */
+    @Override
+    public synchronized void limpiar() {
+        for (ColaIndices cola : categorias) {
+            while (cola.sacar() >= 0) {
+                // Descartar los índices pendientes
+            }
+        }
+        while (libres.sacar() >= 0) {
+            // Descartar los índices libres para volver a cargarlos en orden
+        }
+
+        for (int i = 0; i < capacidadMaxima; i++) {
+            ranuras.set(i, 0);
+            pendientes.set(i, 0);
+        }
+        cargarLibres();
+        cerrado = false;
+    }
+
+    /**
+     * Lee el producto de una ranura sacada de una cola de categoría. Un producto
+     * de varias categorías se entrega a cada una; la última en tomarlo libera la ranura.
+     */
+    private long leerYLiberar(int ranura, int categoria, long ahora) {
+        long producto = ranuras.getPlain(ranura);
+        if (metricas != null) {
+            metricas.registrarTomado(categoria, marcas[ranura], ahora);
+        }
+        liberarSiUltima(ranura);
+        return producto;
+    }
+
+    /**
+     * Descuenta una categoría de la ranura; la última en tomarla la libera
+     */
+    private boolean liberarSiUltima(int ranura) {
+        if (pendientes.decrementAndGet(ranura) == 0) {
+            libres.ofrecer(ranura);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Saca un índice de la cola, esperando de forma escalonada mientras esté vacía:
+     * primero gira activamente, luego cede el procesador y finalmente se bloquea
+     * hasta que se ofrezca un índice o se cierre el buffer
+     *
+     * @param esperaNanos Espera máxima, o Long.MAX_VALUE para esperar sin límite
+     * @return el índice, o -1 si venció el plazo o el buffer se cerró con la cola vacía
+     */
+    private int esperarIndice(ColaIndices cola, long esperaNanos) throws InterruptedException {
+        // Un hilo virtual que gira o cede retiene a su portador y a los demás hilos
+        // virtuales; para ellos se pasa directamente al bloqueo
+        if (esperaNanos <= 0) {
+            return cola.sacar(); // Sin espera: un solo intento
+        }
+        int intentos = Thread.currentThread().isVirtual() ? GIROS + CESIONES : 0;
+        boolean conLimite = esperaNanos != Long.MAX_VALUE;
+        long limite = conLimite ? System.nanoTime() + esperaNanos : 0;
+        EventosJfr.Espera evento = null; // Solo se crea si la espera llega a bloquearse
+        try {
+            while (true) {
+                int indice = cola.sacar();
+                if (indice >= 0) {
+                    return indice;
+                }
+                if (cerrado) {
+                    return cola.sacar(); // Último intento por si se publicó antes del cierre
+                }
+
+                if (intentos < GIROS) {
+                    Thread.onSpinWait();
+                    intentos++;
+                } else if (intentos < GIROS + CESIONES) {
+                    Thread.yield();
+                    intentos++;
+                } else {
+                    long restante = Long.MAX_VALUE;
+                    if (conLimite) {
+                        restante = limite - System.nanoTime();
+                        if (restante <= 0) {
+                            return -1;
+                        }
+                    }
+                    if (evento == null) {
+                        evento = new EventosJfr.Espera();
+                        evento.begin();
+                    }
+                    cola.esperarOferta(restante, this::estaCerrado);
+                }
+            }
+        } finally {
+            if (evento != null) {
+                registrarEspera(evento, cola);
+            }
+        }
+    }
+
+    private void registrarEspera(EventosJfr.Espera evento, ColaIndices cola) {
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.recurso = cola == libres ? "espacio" : MetricasBuffer.TIPOS[indiceCola(cola)];
+            evento.motor = "anillo";
+            evento.commit();
+        }
+    }
+
+    private int indiceCola(ColaIndices cola) {
+        for (int i = 0; i < categorias.length; i++) {
+            if (categorias[i] == cola) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("La cola no pertenece al buffer");
+    }
+
+    /**
+     * Instante actual si hay métricas, para medir la espera que empieza
+     */
+    private long marcaTiempo() {
+        return metricas != null ? System.nanoTime() : 0;
+    }
+
+    private static int indiceCategoria(String tipo) {
+        switch (tipo) {
+            case "par":
+                return PAR;
+            case "impar":
+                return IMPAR;
+            case "primo":
+                return PRIMO;
+            default:
+                throw new IllegalArgumentException("Tipo de consumidor desconocido: " + tipo);
+        }
+    }
+
+    /**
+     * Cola circular acotada de índices para múltiples productores y consumidores.
+     * Cada posición guarda una secuencia que indica si está lista para escribirse
+     * o para leerse; la cabeza y la cola se reservan con CAS.
+     */
+    static final class ColaIndices {
+        private final int mascara;
+        private final int[] valores;
+        private final AtomicLongArray secuencias;
+        private final AtomicLong cabeza = new AtomicLong();
+        private final AtomicLong cola = new AtomicLong();
+
+        // Hilos bloqueados esperando un índice
+        private final AtomicInteger durmientes = new AtomicInteger();
+        private final ReentrantLock cerrojo = new ReentrantLock();
+        private final Condition hayIndices = cerrojo.newCondition();
+
+        ColaIndices(int capacidadMinima) {
+            int tamano = 1;
+            while (tamano < capacidadMinima) {
+                tamano <<= 1;
+            }
+            this.mascara = tamano - 1;
+            this.valores = new int[tamano];
+            this.secuencias = new AtomicLongArray(tamano);
+            for (int i = 0; i < tamano; i++) {
+                secuencias.set(i, i);
+            }
+        }
+
+        /**
+         * Añade un índice al final de la cola; devuelve false si está llena
+         */
+        boolean ofrecer(int valor) {
+            long posicion = cola.get();
+            while (true) {
+                int i = (int) (posicion & mascara);
+                long diferencia = secuencias.get(i) - posicion;
+
+                if (diferencia == 0) {
+                    if (cola.compareAndSet(posicion, posicion + 1)) {
+                        valores[i] = valor;
+                        secuencias.set(i, posicion + 1); // Publica el valor escrito
+                        if (durmientes.get() > 0) {
+                            despertarUno();
+                        }
+                        return true;
+                    }
+                    posicion = cola.get();
+                } else if (diferencia < 0) {
+                    if (posicion - cabeza.get() > mascara) {
+                        return false;
+                    }
+                    // Un consumidor ya avanzó la cabeza pero aún no liberó esta
+                    // posición: la cola no está llena, esperar a que termine
+                    Thread.onSpinWait();
+                    posicion = cola.get();
+                } else {
+                    posicion = cola.get();
+                }
+            }
+        }
+
+        /**
+         * Saca el índice más antiguo de la cola; devuelve -1 si está vacía
+         */
+        int sacar() {
+            long posicion = cabeza.get();
+            while (true) {
+                int i = (int) (posicion & mascara);
+                long diferencia = secuencias.get(i) - (posicion + 1);
+
+                if (diferencia == 0) {
+                    if (cabeza.compareAndSet(posicion, posicion + 1)) {
+                        int valor = valores[i];
+                        secuencias.set(i, posicion + mascara + 1); // Libera la posición para la siguiente vuelta
+                        return valor;
+                    }
+                    posicion = cabeza.get();
+                } else if (diferencia < 0) {
+                    return -1;
+                } else {
+                    posicion = cabeza.get();
+                }
+            }
+        }
+
+        /**
+         * Saca el índice más antiguo solo si es el esperado; devuelve false si
+         * la cola está vacía o al frente hay otro
+         */
+        boolean sacarSi(int esperado) {
+            long posicion = cabeza.get();
+            while (true) {
+                int i = (int) (posicion & mascara);
+                long diferencia = secuencias.get(i) - (posicion + 1);
+
+                if (diferencia == 0) {
+                    // El valor no cambia mientras la cabeza no pase de esta posición
+                    if (valores[i] != esperado) {
+                        return false;
+                    }
+                    if (cabeza.compareAndSet(posicion, posicion + 1)) {
+                        secuencias.set(i, posicion + mascara + 1);
+                        return true;
+                    }
+                    posicion = cabeza.get();
+                } else if (diferencia < 0) {
+                    return false;
+                } else {
+                    posicion = cabeza.get();
+                }
+            }
+        }
+
+        /**
+         * Índices en la cola, del más antiguo al más nuevo. Solo es exacta si
+         * nadie ofrece ni saca mientras tanto.
+         */
+        int[] copiar() {
+            long desde = cabeza.get();
+            long hasta = cola.get();
+            int[] copia = new int[(int) Math.max(0, hasta - desde)];
+            for (int i = 0; i < copia.length; i++) {
+                copia[i] = valores[(int) ((desde + i) & mascara)];
+            }
+            return copia;
+        }
+
+        /**
+         * Índice más antiguo sin sacarlo, o -1 si la cola está vacía. Otro hilo
+         * puede sacarlo enseguida, así que solo sirve como referencia.
+         */
+        int espiar() {
+            return espiar(0);
+        }
+
+        /**
+         * Como espiar, para el índice que está desplazamiento posiciones detrás
+         * de la cabeza; -1 si no hay tantos publicados
+         */
+        int espiar(int desplazamiento) {
+            long posicion = cabeza.get() + desplazamiento;
+            int i = (int) (posicion & mascara);
+            if (secuencias.get(i) != posicion + 1) {
+                return -1;
+            }
+            int valor = valores[i];
+            // Si la secuencia cambió, la posición se sacó y pudo reescribirse mientras se leía
+            return secuencias.get(i) == posicion + 1 ? valor : -1;
+        }
+
+        /**
+         * Bloquea hasta que se ofrezca un índice, se llame a despertarTodos o
+         * pasen esperaNanos (Long.MAX_VALUE = sin límite). Puede volver sin que
+         * haya índices; quien llama vuelve a intentar sacar.
+         */
+        void esperarOferta(long esperaNanos, BooleanSupplier cerrada)
+                throws InterruptedException {
+            cerrojo.lock();
+            try {
+                // Anotarse antes de revisar la cola: quien ofrece publica el
+                // índice antes de mirar los durmientes, así que uno de los dos ve al otro
+                durmientes.incrementAndGet();
+                try {
+                    if (!estaVacia() || cerrada.getAsBoolean()) {
+                        return;
+                    }
+                    if (esperaNanos == Long.MAX_VALUE) {
+                        hayIndices.await();
+                    } else {
+                        hayIndices.awaitNanos(esperaNanos);
+                    }
+                } finally {
+                    durmientes.decrementAndGet();
+                }
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        void despertarTodos() {
+            cerrojo.lock();
+            try {
+                hayIndices.signalAll();
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        private void despertarUno() {
+            cerrojo.lock();
+            try {
+                hayIndices.signal();
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        /**
+         * true si la posición de la cabeza aún no tiene un índice publicado
+         */
+        private boolean estaVacia() {
+            long posicion = cabeza.get();
+            return secuencias.get((int) (posicion & mascara)) - (posicion + 1) < 0;
+        }
+
+        /**
+         * Cantidad aproximada de índices en la cola
+         */
+        int tamano() {
+            long tamano = cola.get() - cabeza.get();
+            return (int) Math.max(0, Math.min(tamano, mascara + 1));
+        }
+    }
+}
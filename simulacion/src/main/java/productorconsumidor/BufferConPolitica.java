@@ -0,0 +1,289 @@
+package productorconsumidor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorador de un {@link BufferCompartido} que decide qué hacer cuando un
+ * productor encuentra el buffer lleno, para que un consumidor lento no detenga
+ * la producción de todas las categorías:
+ *
+ * - bloquear: espera sin límite, como el buffer sin decorar
+ * - limite: espera a lo sumo esperaMaxima y luego descarta el producto nuevo
+ * - descartarNuevo: descarta el producto nuevo sin esperar
+ * - descartarAntiguo: descarta el producto más antiguo del buffer para hacerle lugar
+ * - descartarAntiguoCategoria: descarta el más antiguo de la categoría con más
+ *   pendientes, que es la del consumidor más atrasado
+ *
+ * Con cualquier política salvo bloquear los lotes se ponen de a un producto,
+ * para aplicarla a cada uno. Las operaciones de los consumidores pasan directo
+ * al buffer decorado.
+ */
+class BufferConPolitica implements BufferCompartido {
+    private static final int BLOQUEAR = 0;
+    private static final int LIMITE = 1;
+    private static final int DESCARTAR_NUEVO = 2;
+    private static final int DESCARTAR_ANTIGUO = 3;
+    private static final int DESCARTAR_ANTIGUO_CATEGORIA = 4;
+
+    // Espera breve cuando no hay nada que descartar: el buffer está lleno de
+    // productos que los consumidores ya tomaron pero aún no liberaron
+    private static final long ESPERA_REINTENTO_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final BufferCompartido buffer;
+    private final int politica;
+    private final long esperaMaximaNanos;
+
+    // Productos descartados, y entregas perdidas por cada tipo de consumidor
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder[] descartadosPorTipo = new LongAdder[MetricasBuffer.TIPOS.length];
+
+    /**
+     * @param politica     bloquear, limite, descartarNuevo, descartarAntiguo o descartarAntiguoCategoria
+     * @param esperaMaxima espera por espacio de la política limite
+     */
+    public BufferConPolitica(BufferCompartido buffer, String politica, long esperaMaxima, TimeUnit unidad) {
+        this.buffer = buffer;
+        this.politica = interpretarPolitica(politica);
+        this.esperaMaximaNanos = unidad.toNanos(esperaMaxima);
+        for (int i = 0; i < descartadosPorTipo.length; i++) {
+            descartadosPorTipo[i] = new LongAdder();
+        }
+    }
+
+    private static int interpretarPolitica(String politica) {
+        switch (politica) {
+            case "bloquear":
+                return BLOQUEAR;
+            case "limite":
+                return LIMITE;
+            case "descartarNuevo":
+                return DESCARTAR_NUEVO;
+            case "descartarAntiguo":
+                return DESCARTAR_ANTIGUO;
+            case "descartarAntiguoCategoria":
+                return DESCARTAR_ANTIGUO_CATEGORIA;
+            default:
+                throw new IllegalArgumentException("Política de desborde desconocida: " + politica);
+        }
+    }
+
+    /**
+     * Pone el producto según la política. Un producto descartado cuenta como
+     * puesto para el productor, que solo se detiene si el buffer está cerrado.
+     */
+    @Override
+    public boolean ponerEmpaquetado(long producto) throws InterruptedException {
+        switch (politica) {
+            case LIMITE:
+                return ponerODescartar(producto, esperaMaximaNanos);
+            case DESCARTAR_NUEVO:
+                return ponerODescartar(producto, 0);
+            case DESCARTAR_ANTIGUO:
+            case DESCARTAR_ANTIGUO_CATEGORIA:
+                return ponerDescartandoAntiguos(producto);
+            default:
+                return buffer.ponerEmpaquetado(producto);
+        }
+    }
+
+    private boolean ponerODescartar(long producto, long esperaNanos) throws InterruptedException {
+        if (buffer.ponerEmpaquetado(producto, esperaNanos, TimeUnit.NANOSECONDS)) {
+            return true;
+        }
+        if (buffer.estaCerrado()) {
+            return false;
+        }
+        contarDescarte(producto);
+        return true;
+    }
+
+    private boolean ponerDescartandoAntiguos(long producto) throws InterruptedException {
+        while (!buffer.ponerEmpaquetado(producto, 0, TimeUnit.NANOSECONDS)) {
+            if (buffer.estaCerrado()) {
+                return false;
+            }
+            if (!descartarAntiguo() && buffer.ponerEmpaquetado(producto, ESPERA_REINTENTO_NANOS, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Descarta un producto antiguo según la política
+     *
+     * @return false si no había nada que descartar
+     */
+    private boolean descartarAntiguo() {
+        if (politica == DESCARTAR_ANTIGUO) {
+            long producto = buffer.descartarMasAntiguo();
+            if (producto == ProductoEmpaquetado.NINGUNO) {
+                return false;
+            }
+            contarDescarte(producto);
+            return true;
+        }
+
+        // Solo pierde la entrega la categoría más atrasada; si el producto
+        // también es de otra, su ranura se libera cuando esa lo tome
+        int masAtrasada = 0;
+        for (int i = 1; i < MetricasBuffer.TIPOS.length; i++) {
+            if (buffer.getPendientes(MetricasBuffer.TIPOS[i]) > buffer.getPendientes(MetricasBuffer.TIPOS[masAtrasada])) {
+                masAtrasada = i;
+            }
+        }
+        if (buffer.descartarMasAntiguo(MetricasBuffer.TIPOS[masAtrasada]) == ProductoEmpaquetado.NINGUNO) {
+            return false;
+        }
+        descartados.increment();
+        descartadosPorTipo[masAtrasada].increment();
+        return true;
+    }
+
+    private void contarDescarte(long producto) {
+        descartados.increment();
+        if (ProductoEmpaquetado.esPar(producto)) {
+            descartadosPorTipo[0].increment();
+        }
+        if (ProductoEmpaquetado.esImpar(producto)) {
+            descartadosPorTipo[1].increment();
+        }
+        if (ProductoEmpaquetado.esPrimo(producto)) {
+            descartadosPorTipo[2].increment();
+        }
+    }
+
+    @Override
+    public boolean ponerEmpaquetado(long producto, long espera, TimeUnit unidad) throws InterruptedException {
+        return buffer.ponerEmpaquetado(producto, espera, unidad);
+    }
+
+    @Override
+    public boolean ponerLoteEmpaquetado(long[] productos, int cantidad) throws InterruptedException {
+        if (politica == BLOQUEAR) {
+            return buffer.ponerLoteEmpaquetado(productos, cantidad);
+        }
+        for (int i = 0; i < cantidad; i++) {
+            if (!ponerEmpaquetado(productos[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int ponerLoteEmpaquetado(long[] productos, int desde, int cantidad, long espera, TimeUnit unidad)
+            throws InterruptedException {
+        return buffer.ponerLoteEmpaquetado(productos, desde, cantidad, espera, unidad);
+    }
+
+    /**
+     * Descartes totales y entregas perdidas por tipo. Con descartarAntiguo un
+     * producto que algún consumidor ya tomó cuenta igual para todas sus categorías.
+     */
+    @Override
+    public Map<String, Long> getDescartados() {
+        Map<String, Long> mapa = new LinkedHashMap<>();
+        mapa.put("total", descartados.sum());
+        for (int i = 0; i < descartadosPorTipo.length; i++) {
+            mapa.put(MetricasBuffer.TIPOS[i], descartadosPorTipo[i].sum());
+        }
+        return mapa;
+    }
+
+    @Override
+    public long tomarEmpaquetado(String tipo) throws InterruptedException {
+        return buffer.tomarEmpaquetado(tipo);
+    }
+
+    @Override
+    public int tomarLoteEmpaquetado(String tipo, long[] destino) throws InterruptedException {
+        return buffer.tomarLoteEmpaquetado(tipo, destino);
+    }
+
+    @Override
+    public int tomarLoteEmpaquetado(String tipo, long[] destino, long espera, TimeUnit unidad) throws InterruptedException {
+        return buffer.tomarLoteEmpaquetado(tipo, destino, espera, unidad);
+    }
+
+    @Override
+    public int intentarTomarLoteEmpaquetado(String tipo, long[] destino) {
+        return buffer.intentarTomarLoteEmpaquetado(tipo, destino);
+    }
+
+    @Override
+    public void cerrar() {
+        buffer.cerrar();
+    }
+
+    @Override
+    public boolean estaCerrado() {
+        return buffer.estaCerrado();
+    }
+
+    @Override
+    public List<Producto> getElementos(int maximo) {
+        return buffer.getElementos(maximo);
+    }
+
+    @Override
+    public int getTamano() {
+        return buffer.getTamano();
+    }
+
+    @Override
+    public int getCapacidad() {
+        return buffer.getCapacidad();
+    }
+
+    @Override
+    public int getCapacidadMaxima() {
+        return buffer.getCapacidadMaxima();
+    }
+
+    @Override
+    public int ajustarCapacidad(int capacidad) {
+        return buffer.ajustarCapacidad(capacidad);
+    }
+
+    @Override
+    public int getPendientes(String tipo) {
+        return buffer.getPendientes(tipo);
+    }
+
+    @Override
+    public void instrumentar(MetricasBuffer metricas) {
+        buffer.instrumentar(metricas);
+    }
+
+    @Override
+    public long[] copiarPendientes() {
+        return buffer.copiarPendientes();
+    }
+
+    @Override
+    public long descartarMasAntiguo() {
+        return buffer.descartarMasAntiguo();
+    }
+
+    @Override
+    public long descartarMasAntiguo(String tipo) {
+        return buffer.descartarMasAntiguo(tipo);
+    }
+
+    /**
+     * Limpia el buffer decorado y vuelve a cero los descartes
+     */
+    @Override
+    public void limpiar() {
+        buffer.limpiar();
+        descartados.reset();
+        for (LongAdder contador : descartadosPorTipo) {
+            contador.reset();
+        }
+    }
+}
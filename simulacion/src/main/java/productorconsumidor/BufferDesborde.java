@@ -0,0 +1,542 @@
+package productorconsumidor;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffer de dos niveles: un {@link BufferCompartido} en memoria y, cuando está
+ * lleno, archivos de segmento mapeados en memoria donde los productos se anexan
+ * en orden. Un hilo de traslado los devuelve al buffer en memoria a medida que
+ * los consumidores liberan espacio, así que los productores no se bloquean ni se
+ * pierden productos aunque una ráfaga supere la memoria disponible.
+ *
+ * Mientras queden productos en disco los nuevos también van a disco, para que
+ * cada productor los entregue en el orden en que los puso. Los consumidores solo
+ * toman del buffer en memoria; al cerrar, el buffer en memoria se cierra recién
+ * cuando el traslado vació el disco.
+ *
+ * Los segmentos ya trasladados se rebobinan y se reutilizan, hasta
+ * SEGMENTOS_RECICLADOS de reserva; los que sobran se truncan antes de cerrarlos,
+ * así el espacio en disco se recupera sin esperar a que el recolector libere el
+ * mapeo.
+ */
+class BufferDesborde implements BufferCompartido {
+    // 8 MB por segmento
+    private static final int PRODUCTOS_POR_SEGMENTO = 1 << 20;
+    private static final int TRASLADO_MAXIMO = 256;
+    private static final int SEGMENTOS_RECICLADOS = 2;
+    private static final long ESPERA_TRASLADO_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final BufferCompartido buffer;
+    private final Path directorio;
+
+    // Protege los segmentos y las posiciones de escritura y lectura
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private final Condition hayEnDisco = cerrojo.newCondition();
+    private final ArrayDeque<Segmento> segmentos = new ArrayDeque<>();
+    private final ArrayDeque<Segmento> reciclados = new ArrayDeque<>();
+    private long escritos;
+    private long leidos;
+    private long numeroSegmento;
+    private volatile boolean cerrado;
+    private volatile long enDisco;
+
+    // Lo toma el traslado mientras mueve productos, y limpiar para excluirlo
+    private final ReentrantLock cerrojoTraslado = new ReentrantLock();
+    private volatile boolean vaciando;
+    // Hace que el traslado suelte el cerrojo sin terminar su tramo
+    private volatile boolean detenerTraslado;
+
+    private final LongAdder desbordados = new LongAdder();
+    private volatile boolean falloInformado;
+
+    /**
+     * @param directorio donde se crean los archivos de segmento
+     */
+    public BufferDesborde(BufferCompartido buffer, Path directorio) throws IOException {
+        this.buffer = buffer;
+        this.directorio = Files.createDirectories(directorio);
+        Thread traslado = new Thread(this::trasladar, "traslado-desborde");
+        traslado.setDaemon(true);
+        traslado.start();
+    }
+
+    /**
+     * Pone el producto en memoria si hay espacio y el disco está vacío; si no,
+     * lo anexa al disco sin esperar
+     */
+    @Override
+    public boolean ponerEmpaquetado(long producto) throws InterruptedException {
+        if (cerrado) {
+            return false;
+        }
+        if (enDisco == 0 && buffer.ponerEmpaquetado(producto, 0, TimeUnit.NANOSECONDS)) {
+            return true;
+        }
+        return desbordar(producto);
+    }
+
+    /**
+     * Nunca espera por espacio, así que equivale a ponerEmpaquetado
+     */
+    @Override
+    public boolean ponerEmpaquetado(long producto, long espera, TimeUnit unidad) throws InterruptedException {
+        return ponerEmpaquetado(producto);
+    }
+
+    /**
+     * Pone en memoria, en una sola inserción y sin esperar, los productos que
+     * quepan si el disco está vacío, y anexa el resto al disco
+     */
+    @Override
+    public boolean ponerLoteEmpaquetado(long[] productos, int cantidad) throws InterruptedException {
+        if (cerrado) {
+            return false;
+        }
+        int puestos = enDisco == 0 ? buffer.ponerLoteEmpaquetado(productos, 0, cantidad, 0, TimeUnit.NANOSECONDS) : 0;
+        return puestos == cantidad || desbordar(productos, puestos, cantidad - puestos);
+    }
+
+    /**
+     * Nunca espera por espacio: pone o anexa todos los productos
+     */
+    @Override
+    public int ponerLoteEmpaquetado(long[] productos, int desde, int cantidad, long espera, TimeUnit unidad)
+            throws InterruptedException {
+        if (cerrado) {
+            return 0;
+        }
+        int puestos = enDisco == 0 ? buffer.ponerLoteEmpaquetado(productos, desde, cantidad, 0, TimeUnit.NANOSECONDS) : 0;
+        return puestos == cantidad || desbordar(productos, desde + puestos, cantidad - puestos) ? cantidad : 0;
+    }
+
+    /**
+     * Anexa un producto al disco. Si no se puede escribir, lo pone en memoria
+     * esperando por espacio como un buffer sin desborde.
+     */
+    private boolean desbordar(long producto) throws InterruptedException {
+        IOException error = null;
+        cerrojo.lock();
+        try {
+            if (cerrado) {
+                return false;
+            }
+            try {
+                anexar(producto);
+            } catch (IOException e) {
+                error = e;
+            }
+            avisarEnDisco();
+        } finally {
+            cerrojo.unlock();
+        }
+        if (error == null) {
+            desbordados.increment();
+            return true;
+        }
+        informarFallo(error);
+        return buffer.ponerEmpaquetado(producto);
+    }
+
+    /**
+     * Como desbordar(long) para los productos [desde, desde + cantidad)
+     */
+    private boolean desbordar(long[] productos, int desde, int cantidad) throws InterruptedException {
+        int anexados = 0;
+        IOException error = null;
+        cerrojo.lock();
+        try {
+            if (cerrado) {
+                return false;
+            }
+            try {
+                for (; anexados < cantidad; anexados++) {
+                    anexar(productos[desde + anexados]);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+            avisarEnDisco();
+        } finally {
+            cerrojo.unlock();
+        }
+        desbordados.add(anexados);
+        if (error == null) {
+            return true;
+        }
+        informarFallo(error);
+        for (int i = anexados; i < cantidad; i++) {
+            if (!buffer.ponerEmpaquetado(productos[desde + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Escribe el producto al final del disco, abriendo un segmento si hace
+     * falta. Se llama con el cerrojo tomado.
+     */
+    private void anexar(long producto) throws IOException {
+        if (escritos % PRODUCTOS_POR_SEGMENTO == 0) {
+            segmentos.addLast(siguienteSegmento(escritos));
+        }
+        segmentos.peekLast().escribir(escritos, producto);
+        escritos++;
+    }
+
+    /**
+     * Publica lo escrito y despierta al traslado. Se llama con el cerrojo tomado.
+     */
+    private void avisarEnDisco() {
+        enDisco = escritos - leidos;
+        hayEnDisco.signal();
+    }
+
+    private void informarFallo(IOException error) {
+        if (!falloInformado) {
+            falloInformado = true;
+            System.err.println("No se pudo desbordar a disco: " + error.getMessage());
+        }
+    }
+
+    /**
+     * Segmento que empieza en primero: uno reciclado rebobinado o, si no hay,
+     * uno nuevo. Se llama con el cerrojo tomado.
+     */
+    private Segmento siguienteSegmento(long primero) throws IOException {
+        Segmento segmento = reciclados.pollFirst();
+        if (segmento == null) {
+            segmento = new Segmento(directorio.resolve("desborde-" + numeroSegmento++ + ".seg"));
+        }
+        segmento.rebobinar(primero);
+        return segmento;
+    }
+
+    /**
+     * Guarda el segmento trasladado para reutilizarlo o, si ya hay bastantes de
+     * reserva, libera su archivo. Se llama con el cerrojo tomado.
+     */
+    private void reciclar(Segmento segmento) {
+        if (reciclados.size() < SEGMENTOS_RECICLADOS) {
+            reciclados.addLast(segmento);
+        } else {
+            segmento.liberar();
+        }
+    }
+
+    /**
+     * Cuerpo del hilo de traslado: copia un tramo del disco, lo pone en memoria
+     * esperando por espacio y solo entonces lo da por leído
+     */
+    private void trasladar() {
+        long[] tramo = new long[TRASLADO_MAXIMO];
+        while (true) {
+            try {
+                esperarEnDisco();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            cerrojoTraslado.lock();
+            try {
+                int cantidad = copiarTramo(tramo);
+                int movidos = 0;
+                while (movidos < cantidad && !vaciando && !detenerTraslado && !buffer.estaCerrado()) {
+                    movidos += buffer.ponerLoteEmpaquetado(tramo, movidos, cantidad - movidos,
+                        ESPERA_TRASLADO_NANOS, TimeUnit.NANOSECONDS);
+                }
+                if (!vaciando) {
+                    avanzar(movidos);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                cerrojoTraslado.unlock();
+            }
+        }
+    }
+
+    private void esperarEnDisco() throws InterruptedException {
+        cerrojo.lock();
+        try {
+            while (escritos == leidos) {
+                hayEnDisco.await();
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    private int copiarTramo(long[] tramo) {
+        cerrojo.lock();
+        try {
+            int cantidad = (int) Math.min(tramo.length, escritos - leidos);
+            Iterator<Segmento> pendientes = segmentos.iterator();
+            Segmento segmento = cantidad > 0 ? pendientes.next() : null;
+            for (int i = 0; i < cantidad; i++) {
+                long posicion = leidos + i;
+                if (!segmento.contiene(posicion)) {
+                    segmento = pendientes.next();
+                }
+                tramo[i] = segmento.leer(posicion);
+            }
+            return cantidad;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Da por leídos los productos trasladados, recicla los segmentos terminados y
+     * cierra el buffer en memoria si el disco quedó vacío después de cerrar
+     */
+    private void avanzar(int cantidad) {
+        boolean cerrarMemoria;
+        cerrojo.lock();
+        try {
+            leidos += cantidad;
+            while (!segmentos.isEmpty() && leidos >= segmentos.peekFirst().primero + PRODUCTOS_POR_SEGMENTO) {
+                reciclar(segmentos.removeFirst());
+            }
+            enDisco = escritos - leidos;
+            cerrarMemoria = cerrado && escritos == leidos;
+        } finally {
+            cerrojo.unlock();
+        }
+        if (cerrarMemoria) {
+            buffer.cerrar();
+        }
+    }
+
+    /**
+     * Productos que esperan en disco para pasar a memoria
+     */
+    public long getEnDisco() {
+        return enDisco;
+    }
+
+    /**
+     * Productos que pasaron por disco desde el último limpiar
+     */
+    public long getDesbordados() {
+        return desbordados.sum();
+    }
+
+    /**
+     * Deja de aceptar productos. El buffer en memoria se cierra cuando el
+     * traslado termina de vaciar el disco, para que los consumidores lo reciban todo.
+     */
+    @Override
+    public void cerrar() {
+        boolean vacio;
+        cerrojo.lock();
+        try {
+            cerrado = true;
+            vacio = escritos == leidos;
+        } finally {
+            cerrojo.unlock();
+        }
+        if (vacio) {
+            buffer.cerrar();
+        }
+    }
+
+    @Override
+    public boolean estaCerrado() {
+        return cerrado;
+    }
+
+    /**
+     * Descarta lo que quedó en disco y limpia el buffer en memoria. El traslado
+     * en curso se abandona para no poner productos viejos en el buffer limpio.
+     */
+    @Override
+    public void limpiar() {
+        vaciando = true;
+        cerrojoTraslado.lock();
+        try {
+            cerrojo.lock();
+            try {
+                while (!segmentos.isEmpty()) {
+                    reciclar(segmentos.removeFirst());
+                }
+                escritos = 0;
+                leidos = 0;
+                enDisco = 0;
+                cerrado = false;
+            } finally {
+                cerrojo.unlock();
+            }
+            buffer.limpiar();
+            desbordados.reset();
+        } finally {
+            vaciando = false;
+            cerrojoTraslado.unlock();
+        }
+    }
+
+    @Override
+    public long tomarEmpaquetado(String tipo) throws InterruptedException {
+        return buffer.tomarEmpaquetado(tipo);
+    }
+
+    @Override
+    public int tomarLoteEmpaquetado(String tipo, long[] destino) throws InterruptedException {
+        return buffer.tomarLoteEmpaquetado(tipo, destino);
+    }
+
+    @Override
+    public int tomarLoteEmpaquetado(String tipo, long[] destino, long espera, TimeUnit unidad) throws InterruptedException {
+        return buffer.tomarLoteEmpaquetado(tipo, destino, espera, unidad);
+    }
+
+    @Override
+    public int intentarTomarLoteEmpaquetado(String tipo, long[] destino) {
+        return buffer.intentarTomarLoteEmpaquetado(tipo, destino);
+    }
+
+    /**
+     * Elementos del buffer en memoria; los del disco no se muestran
+     */
+    @Override
+    public List<Producto> getElementos(int maximo) {
+        return buffer.getElementos(maximo);
+    }
+
+    @Override
+    public int getTamano() {
+        return buffer.getTamano();
+    }
+
+    @Override
+    public int getCapacidad() {
+        return buffer.getCapacidad();
+    }
+
+    @Override
+    public int getCapacidadMaxima() {
+        return buffer.getCapacidadMaxima();
+    }
+
+    @Override
+    public int ajustarCapacidad(int capacidad) {
+        return buffer.ajustarCapacidad(capacidad);
+    }
+
+    @Override
+    public int getPendientes(String tipo) {
+        return buffer.getPendientes(tipo);
+    }
+
+    @Override
+    public void instrumentar(MetricasBuffer metricas) {
+        buffer.instrumentar(metricas);
+    }
+
+    /**
+     * Los productos en memoria seguidos de los que esperan en disco. Detiene el
+     * traslado mientras copia para que ningún producto cambie de nivel.
+     */
+    @Override
+    public long[] copiarPendientes() {
+        detenerTraslado = true;
+        cerrojoTraslado.lock();
+        try {
+            long[] enMemoria = buffer.copiarPendientes();
+            cerrojo.lock();
+            try {
+                long[] copia = Arrays.copyOf(enMemoria, Math.toIntExact(enMemoria.length + escritos - leidos));
+                Iterator<Segmento> pendientes = segmentos.iterator();
+                Segmento segmento = null;
+                for (int i = enMemoria.length; i < copia.length; i++) {
+                    long posicion = leidos + i - enMemoria.length;
+                    if (segmento == null || !segmento.contiene(posicion)) {
+                        segmento = pendientes.next();
+                    }
+                    copia[i] = segmento.leer(posicion);
+                }
+                return copia;
+            } finally {
+                cerrojo.unlock();
+            }
+        } finally {
+            detenerTraslado = false;
+            cerrojoTraslado.unlock();
+        }
+    }
+
+    @Override
+    public long descartarMasAntiguo() {
+        return buffer.descartarMasAntiguo();
+    }
+
+    @Override
+    public long descartarMasAntiguo(String tipo) {
+        return buffer.descartarMasAntiguo(tipo);
+    }
+
+    /**
+     * Archivo de segmento mapeado con los productos [primero, primero + PRODUCTOS_POR_SEGMENTO).
+     * El archivo se borra al cerrar su canal, o al terminar la JVM.
+     */
+    private static final class Segmento {
+        private final FileChannel canal;
+        private final MappedByteBuffer mapa;
+        private long primero;
+
+        Segmento(Path ruta) throws IOException {
+            this.canal = FileChannel.open(ruta, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            try {
+                this.mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, 8L * PRODUCTOS_POR_SEGMENTO);
+            } catch (IOException e) {
+                canal.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Reutiliza el segmento para los productos que empiezan en primero
+         */
+        void rebobinar(long primero) {
+            this.primero = primero;
+        }
+
+        /**
+         * Trunca el archivo para devolver sus bloques, aunque el mapeo siga vivo
+         * hasta que lo libere el recolector, y lo borra. El mapeo no se vuelve a usar.
+         */
+        void liberar() {
+            try (FileChannel cerrar = canal) {
+                cerrar.truncate(0);
+            } catch (IOException e) {
+                System.err.println("No se pudo liberar el segmento de desborde: " + e.getMessage());
+            }
+        }
+
+        boolean contiene(long posicion) {
+            return posicion >= primero && posicion < primero + PRODUCTOS_POR_SEGMENTO;
+        }
+
+        void escribir(long posicion, long producto) {
+            mapa.putLong((int) (posicion - primero) * 8, producto);
+        }
+
+        long leer(long posicion) {
+            return mapa.getLong((int) (posicion - primero) * 8);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package productorconsumidor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Separa la producción en tres etapas para que la primalidad no se calcule en
+ * el hilo del productor:
+ *
+ * - lectura: los productores leen los números sin clasificar y envían cada lote
+ * - clasificación: un grupo de hilos clasifica los lotes en paralelo
+ * - entrega: uno o más hilos ponen los lotes clasificados en el {@link BufferCompartido}
+ *
+ * Cada etapa pasa los lotes a la siguiente por una cola acotada, y los lotes
+ * se reciclan por una cola de libres, así que un productor espera cuando las
+ * etapas siguientes van atrasadas. Los clasificadores terminan los lotes en
+ * cualquier orden, y sin orden varios hilos de entrega los ponen en el buffer a
+ * la vez. En modo ordenado un solo hilo de entrega los reordena por número de
+ * envío y los pone en el buffer en el orden en que se leyeron.
+ *
+ * Un lote enviado sigue anunciado al punto de control hasta entregarse, así
+ * que un punto de control espera a que las etapas se vacíen y nunca hay
+ * productos fuera del buffer y de la posición entregada.
+ */
+class ClasificacionParalela {
+    // Marca de fin que recorre las etapas al terminar
+    private static final Lote FIN = new Lote(0);
+
+    private final BufferCompartido buffer;
+    private final boolean ordenado;
+    private final BlockingQueue<Lote> libres;
+    private final BlockingQueue<Lote> porClasificar;
+    private final BlockingQueue<Lote> clasificados;
+    private final List<Thread> clasificadores = new ArrayList<>();
+    private final List<Thread> entregas = new ArrayList<>();
+    private final AtomicLong envios = new AtomicLong();
+    private final Map<Long, Lote> fueraDeOrden = new HashMap<>(); // Solo lo usa la entrega ordenada
+    private long siguienteEntrega;
+    private volatile boolean cerrado;
+
+    /**
+     * @param hilos       hilos de clasificación
+     * @param capacidad   lotes que admite cada cola entre etapas
+     * @param tamanoLote  productos por lote, como el del productor
+     * @param ordenado    entregar los lotes en el orden de envío
+     * @param hilosEntrega hilos que ponen los lotes en el buffer; con orden, uno solo
+     */
+    public ClasificacionParalela(BufferCompartido buffer, int hilos, int capacidad, int tamanoLote, boolean ordenado,
+                                 int hilosEntrega) {
+        this.buffer = buffer;
+        this.ordenado = ordenado;
+        this.porClasificar = new ArrayBlockingQueue<>(capacidad);
+        this.clasificados = new ArrayBlockingQueue<>(capacidad);
+        int entregadores = ordenado ? 1 : Math.max(1, hilosEntrega);
+        // Lotes suficientes para llenar ambas colas mientras cada hilo tiene uno
+        int lotes = 2 * capacidad + hilos + entregadores;
+        this.libres = new ArrayBlockingQueue<>(lotes);
+        for (int i = 0; i < lotes; i++) {
+            libres.add(new Lote(tamanoLote));
+        }
+        for (int i = 0; i < hilos; i++) {
+            clasificadores.add(crearHilo(this::clasificar, "clasificador-" + i));
+        }
+        for (int i = 0; i < entregadores; i++) {
+            entregas.add(crearHilo(this::entregar, "entrega-" + i));
+        }
+    }
+
+    private static Thread crearHilo(Runnable tarea, String nombre) {
+        Thread hilo = new Thread(tarea, nombre);
+        hilo.setDaemon(true);
+        return hilo;
+    }
+
+    public void iniciar() {
+        for (Thread hilo : clasificadores) {
+            hilo.start();
+        }
+        for (Thread hilo : entregas) {
+            hilo.start();
+        }
+    }
+
+    /**
+     * Envía una copia del lote leído a la etapa de clasificación; espera si no
+     * hay lotes libres
+     *
+     * @param posicion    posición de la fuente tras el último producto del lote
+     * @param puntoControl punto de control al que el lote está anunciado, o null;
+     *                     la entrega lo libera
+     * @return false si las etapas se detuvieron y el lote no se envió
+     */
+    public boolean enviar(Productor origen, long[] productos, int cantidad, long posicion,
+                          PuntoControl puntoControl) throws InterruptedException {
+        if (cerrado) {
+            return false;
+        }
+        Lote lote = libres.take();
+        System.arraycopy(productos, 0, lote.productos, 0, cantidad);
+        lote.cantidad = cantidad;
+        lote.posicion = posicion;
+        lote.origen = origen;
+        lote.puntoControl = puntoControl;
+        lote.envio = envios.getAndIncrement();
+        try {
+            porClasificar.put(lote);
+        } catch (InterruptedException e) {
+            lote.puntoControl = null; // Sigue anunciado por el productor, que lo libera
+            libres.add(lote);
+            throw e;
+        }
+        return true;
+    }
+
+    private void clasificar() {
+        try {
+            while (true) {
+                Lote lote = porClasificar.take();
+                if (lote == FIN) {
+                    return;
+                }
+                EventosJfr.Lote evento = new EventosJfr.Lote();
+                evento.begin();
+                long[] productos = lote.productos;
+                for (int i = 0; i < lote.cantidad; i++) {
+                    productos[i] = ProductoEmpaquetado.clasificar(productos[i]);
+                }
+                evento.end();
+                if (evento.shouldCommit()) {
+                    evento.etapa = "clasificación";
+                    evento.cantidad = lote.cantidad;
+                    evento.commit();
+                }
+                try {
+                    clasificados.put(lote);
+                } catch (InterruptedException e) {
+                    liberar(lote);
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Detenido
+        }
+    }
+
+    private void entregar() {
+        try {
+            while (true) {
+                Lote lote = clasificados.take();
+                if (lote == FIN) {
+                    return;
+                }
+                if (!ordenado) {
+                    entregar(lote);
+                    continue;
+                }
+                // Los lotes que llegan antes de tiempo esperan a los anteriores
+                fueraDeOrden.put(lote.envio, lote);
+                while ((lote = fueraDeOrden.remove(siguienteEntrega)) != null) {
+                    siguienteEntrega++;
+                    entregar(lote);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Detenido
+        } finally {
+            if (ordenado) {
+                for (Lote lote : fueraDeOrden.values()) {
+                    liberar(lote);
+                }
+                fueraDeOrden.clear();
+            }
+        }
+    }
+
+    private void entregar(Lote lote) throws InterruptedException {
+        try {
+            if (cerrado) {
+                return;
+            }
+            EventosJfr.Poner evento = new EventosJfr.Poner();
+            evento.begin();
+            boolean entregado = lote.cantidad == 1
+                ? buffer.ponerEmpaquetado(lote.productos[0])
+                : buffer.ponerLoteEmpaquetado(lote.productos, lote.cantidad);
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.cantidad = lote.cantidad;
+                evento.valor = ProductoEmpaquetado.valor(lote.productos[0]);
+                evento.ocupacion = buffer.getTamano();
+                evento.aceptado = entregado;
+                evento.commit();
+            }
+            if (entregado) {
+                lote.origen.entregado(lote.productos, lote.cantidad, lote.posicion);
+            } else {
+                cerrado = true; // Buffer cerrado: los productores se detienen al enviar
+            }
+        } finally {
+            liberar(lote);
+        }
+    }
+
+    /**
+     * Libera el anuncio del lote al punto de control y lo devuelve a los libres
+     */
+    private void liberar(Lote lote) {
+        if (lote.puntoControl != null) {
+            lote.puntoControl.salirProductor();
+            lote.puntoControl = null;
+        }
+        lote.origen = null;
+        libres.add(lote);
+    }
+
+    /**
+     * Espera a que se entregue todo lo enviado y termina los hilos. Se llama
+     * cuando los productores ya terminaron.
+     */
+    public void terminar() throws InterruptedException {
+        for (int i = 0; i < clasificadores.size(); i++) {
+            porClasificar.put(FIN);
+        }
+        for (Thread hilo : clasificadores) {
+            hilo.join();
+        }
+        for (int i = 0; i < entregas.size(); i++) {
+            clasificados.put(FIN);
+        }
+        for (Thread hilo : entregas) {
+            hilo.join();
+        }
+    }
+
+    /**
+     * Detiene las etapas sin entregar lo que queda en ellas, que se libera del
+     * punto de control. Se llama con los productores ya detenidos.
+     */
+    public void detener(long milisegundos) throws InterruptedException {
+        cerrado = true;
+        for (Thread hilo : clasificadores) {
+            hilo.interrupt();
+        }
+        for (Thread hilo : entregas) {
+            hilo.interrupt();
+        }
+        for (Thread hilo : clasificadores) {
+            hilo.join(milisegundos);
+        }
+        for (Thread hilo : entregas) {
+            hilo.join(milisegundos);
+        }
+        List<Lote> restantes = new ArrayList<>();
+        porClasificar.drainTo(restantes);
+        clasificados.drainTo(restantes);
+        for (Lote lote : restantes) {
+            if (lote != FIN) {
+                liberar(lote);
+            }
+        }
+    }
+
+    private static final class Lote {
+        final long[] productos;
+        int cantidad;
+        long posicion;
+        long envio;
+        Productor origen;
+        PuntoControl puntoControl; // null si no está anunciado
+
+        Lote(int tamano) {
+            this.productos = new long[tamano];
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package productorconsumidor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Eventos de JDK Flight Recorder de la simulación, con nombres
+ * productorconsumidor.*. Fuera de una grabación su costo es una comprobación de
+ * {@link Event#shouldCommit()}. Los eventos por operación tienen un umbral para
+ * registrar solo las lentas; con un umbral de 0 ms se registra cada una.
+ */
+final class EventosJfr {
+    private static final String CATEGORIA = "Productor-Consumidor";
+
+    private EventosJfr() {
+    }
+
+    @Name("productorconsumidor.Poner")
+    @Label("Poner en el buffer")
+    @Description("Un productor entrega un producto o un lote, incluida la espera por espacio")
+    @Category({CATEGORIA, "Buffer"})
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static final class Poner extends Event {
+        @Label("Cantidad")
+        int cantidad;
+
+        @Label("Valor")
+        @Description("Primer valor del lote")
+        int valor;
+
+        @Label("Ocupación")
+        @Description("Ranuras ocupadas al terminar")
+        int ocupacion;
+
+        @Label("Aceptado")
+        @Description("false si el buffer estaba cerrado")
+        boolean aceptado;
+    }
+
+    @Name("productorconsumidor.Tomar")
+    @Label("Tomar del buffer")
+    @Description("Un consumidor toma uno o varios productos de su categoría, incluida la espera")
+    @Category({CATEGORIA, "Buffer"})
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static final class Tomar extends Event {
+        @Label("Categoría")
+        String categoria;
+
+        @Label("Cantidad")
+        @Description("Productos tomados; 0 si venció la espera y -1 si el buffer está cerrado")
+        int cantidad;
+
+        @Label("Valor")
+        @Description("Primer valor tomado")
+        int valor;
+
+        @Label("Pendientes")
+        @Description("Productos de la categoría que quedan en el buffer")
+        int pendientes;
+    }
+
+    @Name("productorconsumidor.Espera")
+    @Label("Espera en el buffer")
+    @Description("Bloqueo en un semáforo, en el mutex o en una cola vacía del buffer")
+    @Category({CATEGORIA, "Buffer"})
+    @Threshold("1 ms")
+    static final class Espera extends Event {
+        @Label("Recurso")
+        @Description("espacio, mutex o la categoría esperada (par, impar, primo)")
+        String recurso;
+
+        @Label("Motor")
+        String motor;
+    }
+
+    @Name("productorconsumidor.Lote")
+    @Label("Lote")
+    @Description("Desde el primer producto de un lote hasta su entrega, o el procesamiento de un lote tomado")
+    @Category({CATEGORIA, "Lotes"})
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static final class Lote extends Event {
+        @Label("Etapa")
+        @Description("producción o consumo")
+        String etapa;
+
+        @Label("Categoría")
+        String categoria;
+
+        @Label("Cantidad")
+        int cantidad;
+    }
+
+    @Name("productorconsumidor.Reinicio")
+    @Label("Reinicio de la simulación")
+    @Category(CATEGORIA)
+    static final class Reinicio extends Event {
+        @Label("Productores")
+        int productores;
+
+        @Label("Consumidores")
+        int consumidores;
+    }
+}
@@ -0,0 +1,306 @@
+package productorconsumidor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Formato binario de los archivos de números, que el productor lee sin
+ * convertir texto. Una cabecera de 16 bytes:
+ *
+ * - bytes 0 a 3: la firma "PCNB"
+ * - byte 4: versión
+ * - byte 5: codificación, {@link #INT32} o {@link #VARINT}
+ * - byte 6: opciones; con {@link #CON_CATEGORIAS} cada número trae su clasificación
+ * - byte 7: reservado
+ * - bytes 8 a 15: cantidad de números, little-endian
+ *
+ * y luego un registro por número:
+ *
+ * - int32: el valor en 4 bytes little-endian, seguido con categorías de un byte
+ *   con las banderas par, impar y primo en los bits 0 a 2
+ * - varint: el valor en zigzag, desplazado 3 bits a la izquierda con categorías
+ *   para llevar las banderas en los bits bajos, en base 128 (LEB128); ocupa de
+ *   1 a 5 bytes y los números chicos, de 1 o 2
+ *
+ * Con categorías el productor no clasifica: la primalidad se calculó al generar el archivo.
+ */
+final class FormatoBinario {
+    public static final int CABECERA = 16;
+    public static final int INT32 = 0;
+    public static final int VARINT = 1;
+    public static final int CON_CATEGORIAS = 1;
+
+    private static final int FIRMA = 0x50434E42; // "PCNB"
+    private static final int VERSION = 1;
+    // Tamaño máximo de un registro en cualquiera de las codificaciones
+    static final int REGISTRO_MAXIMO = 5;
+
+    private FormatoBinario() {
+    }
+
+    /**
+     * Interpreta el nombre de una codificación: int32 o varint
+     */
+    public static int codificacion(String nombre) {
+        switch (nombre) {
+            case "int32":
+                return INT32;
+            case "varint":
+                return VARINT;
+            default:
+                throw new IllegalArgumentException("Codificación binaria desconocida: " + nombre);
+        }
+    }
+
+    /**
+     * Si el archivo empieza con la firma del formato binario
+     */
+    public static boolean esBinario(FileChannel canal) throws IOException {
+        ByteBuffer firma = ByteBuffer.allocate(4);
+        while (firma.hasRemaining() && canal.read(firma, firma.position()) > 0) {
+            // Leer hasta completar la firma o llegar al final
+        }
+        firma.flip();
+        return esBinario(firma);
+    }
+
+    /**
+     * Si los bytes desde la posición del búfer empiezan con la firma
+     */
+    public static boolean esBinario(ByteBuffer inicio) {
+        return inicio.remaining() >= 4 && inicio.getInt(inicio.position()) == FIRMA;
+    }
+
+    /**
+     * Producto de un registro int32
+     *
+     * @param banderas   el byte de categorías; se ignora sin ellas
+     * @param clasificar sin categorías, clasificar el valor o dejarlo sin clasificar
+     */
+    static long producto(int valor, byte banderas, boolean conCategorias, boolean clasificar) {
+        return conCategorias
+            ? ProductoEmpaquetado.conCategorias(valor & 0xFFFFFFFFL, (long) banderas << 32)
+            : ProductoEmpaquetado.empaquetar(valor, clasificar);
+    }
+
+    /**
+     * Producto de un registro varint ya leído en base 128
+     */
+    static long productoVarint(long codigo, boolean conCategorias, boolean clasificar) {
+        long categorias = 0;
+        if (conCategorias) {
+            categorias = (codigo & 0x7) << 32;
+            codigo >>>= 3;
+        }
+        int valor = (int) (codigo >>> 1) ^ -(int) (codigo & 1);
+        return conCategorias
+            ? ProductoEmpaquetado.conCategorias(valor & 0xFFFFFFFFL, categorias)
+            : ProductoEmpaquetado.empaquetar(valor, clasificar);
+    }
+
+    /**
+     * Cabecera de un archivo binario
+     */
+    static final class Cabecera {
+        private final int codificacion;
+        private final boolean conCategorias;
+        private final long cantidad;
+
+        Cabecera(int codificacion, boolean conCategorias, long cantidad) {
+            this.codificacion = codificacion;
+            this.conCategorias = conCategorias;
+            this.cantidad = cantidad;
+        }
+
+        static Cabecera leer(FileChannel canal) throws IOException {
+            ByteBuffer bytes = ByteBuffer.allocate(CABECERA);
+            while (bytes.hasRemaining() && canal.read(bytes, bytes.position()) > 0) {
+                // Leer hasta completar la cabecera o llegar al final
+            }
+            bytes.flip();
+            return leer(bytes);
+        }
+
+        /**
+         * Lee la cabecera de los primeros bytes del búfer, desde la posición 0
+         */
+        static Cabecera leer(ByteBuffer bytes) throws IOException {
+            if (bytes.limit() < CABECERA || bytes.getInt(0) != FIRMA) {
+                throw new IOException("No es un archivo de números binario");
+            }
+            bytes = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            if (bytes.get(4) != VERSION) {
+                throw new IOException("Versión de archivo binario desconocida: " + bytes.get(4));
+            }
+            int codificacion = bytes.get(5);
+            if (codificacion != INT32 && codificacion != VARINT) {
+                throw new IOException("Codificación binaria desconocida: " + codificacion);
+            }
+            return new Cabecera(codificacion, (bytes.get(6) & CON_CATEGORIAS) != 0, bytes.getLong(8));
+        }
+
+        void escribir(FileChannel canal) throws IOException {
+            ByteBuffer bytes = ByteBuffer.allocate(CABECERA);
+            bytes.putInt(FIRMA);
+            bytes.order(ByteOrder.LITTLE_ENDIAN);
+            bytes.put((byte) VERSION);
+            bytes.put((byte) codificacion);
+            bytes.put((byte) (conCategorias ? CON_CATEGORIAS : 0));
+            bytes.put((byte) 0);
+            bytes.putLong(cantidad);
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                canal.write(bytes, bytes.position());
+            }
+        }
+
+        public int getCodificacion() {
+            return codificacion;
+        }
+
+        public boolean isConCategorias() {
+            return conCategorias;
+        }
+
+        public long getCantidad() {
+            return cantidad;
+        }
+
+        /**
+         * Bytes por registro con int32; 0 con varint, que es de tamaño variable
+         */
+        public int getTamanoRegistro() {
+            return codificacion == INT32 ? (conCategorias ? 5 : 4) : 0;
+        }
+    }
+
+    /**
+     * Divide los registros del archivo en partes tramos consecutivos de tamaño
+     * similar, como {@link LectorMapeado#dividirEnLineas} con el texto. Con
+     * varint cada límite se mueve hasta justo después del fin de un registro,
+     * que es el primer byte sin el bit alto.
+     *
+     * @return partes + 1 posiciones; el tramo i es [limites[i], limites[i + 1])
+     */
+    public static long[] dividir(FileChannel canal, int partes) throws IOException {
+        Cabecera cabecera = Cabecera.leer(canal);
+        long tamano = canal.size();
+        long datos = tamano - CABECERA;
+        long[] limites = new long[partes + 1];
+        limites[0] = CABECERA;
+        limites[partes] = tamano;
+
+        int tamanoRegistro = cabecera.getTamanoRegistro();
+        if (tamanoRegistro > 0) {
+            long registros = datos / tamanoRegistro;
+            for (int i = 1; i < partes; i++) {
+                limites[i] = CABECERA + registros * i / partes * tamanoRegistro;
+            }
+            return limites;
+        }
+
+        ByteBuffer bloque = ByteBuffer.allocate(4096);
+        for (int i = 1; i < partes; i++) {
+            long posicion = Math.max(CABECERA + datos * i / partes, limites[i - 1]);
+            limites[i] = tamano;
+
+            buscar:
+            while (posicion < tamano) {
+                bloque.clear();
+                int leidos = canal.read(bloque, posicion);
+                for (int j = 0; j < leidos; j++) {
+                    if (bloque.get(j) >= 0) {
+                        limites[i] = posicion + j + 1;
+                        break buscar;
+                    }
+                }
+                posicion += leidos;
+            }
+        }
+        return limites;
+    }
+
+    /**
+     * Agrega el registro de un valor a un búfer little-endian con lugar para
+     * {@link #REGISTRO_MAXIMO} bytes
+     *
+     * @param conCategorias clasificar el valor y guardar sus banderas
+     */
+    static void codificar(ByteBuffer destino, int valor, int codificacion, boolean conCategorias) {
+        long categorias = conCategorias
+            ? (ProductoEmpaquetado.empaquetar(valor) & ProductoEmpaquetado.CATEGORIAS) >>> 32
+            : 0;
+        if (codificacion == INT32) {
+            destino.putInt(valor);
+            if (conCategorias) {
+                destino.put((byte) categorias);
+            }
+            return;
+        }
+        long codigo = ((valor << 1) ^ (valor >> 31)) & 0xFFFFFFFFL;
+        if (conCategorias) {
+            codigo = codigo << 3 | categorias;
+        }
+        while ((codigo & ~0x7FL) != 0) {
+            destino.put((byte) (codigo & 0x7F | 0x80));
+            codigo >>>= 7;
+        }
+        destino.put((byte) codigo);
+    }
+
+    /**
+     * Escribe un archivo binario a través de un búfer grande. La cantidad de la
+     * cabecera se completa al cerrar.
+     */
+    static final class Escritor implements Closeable {
+        private static final int TAMANO_BUFER = 1 << 20;
+
+        private final FileChannel canal;
+        private final int codificacion;
+        private final boolean conCategorias;
+        private final ByteBuffer bufer = ByteBuffer.allocateDirect(TAMANO_BUFER).order(ByteOrder.LITTLE_ENDIAN);
+        private long cantidad;
+
+        /**
+         * @param conCategorias clasificar cada número al escribirlo
+         */
+        Escritor(Path archivo, int codificacion, boolean conCategorias) throws IOException {
+            this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+            this.codificacion = codificacion;
+            this.conCategorias = conCategorias;
+            canal.position(CABECERA);
+        }
+
+        public void escribir(int valor) throws IOException {
+            if (bufer.remaining() < REGISTRO_MAXIMO) {
+                vaciar();
+            }
+            codificar(bufer, valor, codificacion, conCategorias);
+            cantidad++;
+        }
+
+        private void vaciar() throws IOException {
+            bufer.flip();
+            while (bufer.hasRemaining()) {
+                canal.write(bufer);
+            }
+            bufer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                vaciar();
+                new Cabecera(codificacion, conCategorias, cantidad).escribir(canal);
+            } finally {
+                canal.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package productorconsumidor;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Esta clase permite generar un archivo con números aleatorios para probar
+ * la aplicación Productor-Consumidor
+ * Versión modificada: un número por línea
+ */
+public class GeneradorNumeros {
+    public static void main(String[] args) {
+        // Opciones --archivo, --cantidad, --min y --max, y --formato=texto|int32|varint;
+        // con --categorias los formatos binarios guardan además la clasificación
+        Map<String, String> opciones = ProductorConsumidorSemaforos.leerOpciones(args);
+        String archivo = opciones.getOrDefault("archivo", "numeros.txt");
+        long cantidadNumeros = Long.parseLong(opciones.getOrDefault("cantidad", "100"));
+        int minValor = Integer.parseInt(opciones.getOrDefault("min", "1"));
+        int maxValor = Integer.parseInt(opciones.getOrDefault("max", "1000"));
+        String formato = opciones.getOrDefault("formato", "texto");
+
+        // Generación en paralelo (--hilos=N), reproducible con --semilla=N, con
+        // --distribucion=uniforme|primos|pares|grandes|adversaria y, para
+        // adversaria, --categoria=par|impar|primo
+        long semilla = opciones.containsKey("semilla")
+            ? Long.parseLong(opciones.get("semilla"))
+            : ThreadLocalRandom.current().nextLong();
+        int hilos = Integer.parseInt(opciones.getOrDefault("hilos",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        GeneradorParalelo generador = new GeneradorParalelo(cantidadNumeros, minValor, maxValor,
+            opciones.getOrDefault("distribucion", "uniforme"), opciones.getOrDefault("categoria", "primo"),
+            semilla, hilos);
+
+        generar(generador, archivo, formato, opciones.containsKey("categorias"));
+        System.out.println("Semilla: " + semilla);
+    }
+
+    /**
+     * Genera un archivo de texto con números aleatorios, un número por línea
+     * @param nombreArchivo Nombre del archivo a generar
+     * @param cantidad Cantidad de números a generar
+     * @param min Valor mínimo
+     * @param max Valor máximo
+     */
+    public static void generarArchivoNumeros(String nombreArchivo, int cantidad, int min, int max) {
+        generar(uniforme(cantidad, min, max), nombreArchivo, "texto", false);
+    }
+
+    private static GeneradorParalelo uniforme(int cantidad, int min, int max) {
+        return new GeneradorParalelo(cantidad, min, max, "uniforme", "primo",
+            ThreadLocalRandom.current().nextLong(), Runtime.getRuntime().availableProcessors());
+    }
+
+    private static void generar(GeneradorParalelo generador, String nombreArchivo, String formato, boolean conCategorias) {
+        try {
+            generador.generar(Paths.get(nombreArchivo), formato, conCategorias);
+            System.out.println("Archivo " + nombreArchivo + " generado con exito");
+        } catch (IOException e) {
+            System.err.println("Error al generar el archivo: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package productorconsumidor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Genera archivos de números grandes, de miles de millones de números, para
+ * pruebas de carga. La salida se divide en bloques que se generan y codifican
+ * en paralelo, cada uno con su propio {@link SplittableRandom}; un solo hilo
+ * escribe los bloques en orden por un {@link FileChannel}. Los generadores de
+ * los bloques se derivan en orden de la semilla, así que el archivo depende
+ * solo de la semilla y las opciones, no de la cantidad de hilos.
+ *
+ * Distribuciones:
+ *
+ * - uniforme: todos los valores del rango con igual probabilidad
+ * - primos: la mitad de los números son primos
+ * - pares: solo números pares
+ * - grandes: sesgada hacia el máximo, donde comprobar primalidad es más caro
+ * - adversaria: solo números de una categoría, para cargar a un único tipo de
+ *   consumidor: pares distintos de 2, impares compuestos o primos
+ */
+class GeneradorParalelo {
+    private static final int UNIFORME = 0;
+    private static final int PRIMOS = 1;
+    private static final int PARES = 2;
+    private static final int GRANDES = 3;
+    private static final int ADVERSARIA = 4;
+
+    private static final int TEXTO = -1;
+    private static final int NUMEROS_POR_BLOQUE = 1 << 18;
+    // "-2147483648\n"
+    private static final int TEXTO_MAXIMO = 12;
+    // Intentos para encontrar un número de la categoría antes de rendirse
+    private static final int INTENTOS = 1000;
+
+    private final long cantidad;
+    private final int minimo;
+    private final int maximo;
+    // Los pares del rango son 2k con k entre estas mitades
+    private final long mitadMinima;
+    private final long mitadMaxima;
+    private final int distribucion;
+    private final String categoria;
+    private final long semilla;
+    private final int hilos;
+
+    /**
+     * @param distribucion uniforme, primos, pares, grandes o adversaria
+     * @param categoria    par, impar o primo; solo para la distribución adversaria
+     */
+    public GeneradorParalelo(long cantidad, int minimo, int maximo, String distribucion, String categoria,
+                             long semilla, int hilos) {
+        if (minimo > maximo) {
+            throw new IllegalArgumentException("El mínimo es mayor que el máximo");
+        }
+        this.cantidad = cantidad;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.mitadMinima = Math.floorDiv(minimo + 1L, 2);
+        this.mitadMaxima = Math.floorDiv(maximo, 2);
+        this.distribucion = interpretarDistribucion(distribucion);
+        this.categoria = categoria;
+        this.semilla = semilla;
+        this.hilos = Math.max(1, hilos);
+        if (this.distribucion == PARES && mitadMinima > mitadMaxima) {
+            throw new IllegalArgumentException("No hay números pares entre " + minimo + " y " + maximo);
+        }
+        if (this.distribucion == ADVERSARIA && !categoria.equals("par") && !categoria.equals("impar")
+            && !categoria.equals("primo")) {
+            throw new IllegalArgumentException("Categoría desconocida: " + categoria);
+        }
+    }
+
+    private static int interpretarDistribucion(String distribucion) {
+        switch (distribucion) {
+            case "uniforme":
+                return UNIFORME;
+            case "primos":
+                return PRIMOS;
+            case "pares":
+                return PARES;
+            case "grandes":
+                return GRANDES;
+            case "adversaria":
+                return ADVERSARIA;
+            default:
+                throw new IllegalArgumentException("Distribución desconocida: " + distribucion);
+        }
+    }
+
+    /**
+     * Escribe el archivo
+     *
+     * @param formato       texto, un número por línea, o int32 o varint del {@link FormatoBinario}
+     * @param conCategorias en binario, guardar la clasificación de cada número
+     */
+    public void generar(Path archivo, String formato, boolean conCategorias) throws IOException {
+        int codificacion = formato.equals("texto") ? TEXTO : FormatoBinario.codificacion(formato);
+        int tamanoBufer = NUMEROS_POR_BLOQUE * (codificacion == TEXTO ? TEXTO_MAXIMO : FormatoBinario.REGISTRO_MAXIMO);
+
+        // Dos bloques por hilo: mientras se escribe uno los hilos llenan los siguientes
+        int enVuelo = 2 * hilos;
+        ArrayDeque<ByteBuffer> libres = new ArrayDeque<>();
+        for (int i = 0; i < enVuelo; i++) {
+            libres.add(ByteBuffer.allocateDirect(tamanoBufer).order(ByteOrder.LITTLE_ENDIAN));
+        }
+        ArrayDeque<Future<ByteBuffer>> pendientes = new ArrayDeque<>();
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "generador");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (codificacion != TEXTO) {
+                canal.position(FormatoBinario.CABECERA);
+            }
+            SplittableRandom raiz = new SplittableRandom(semilla);
+            for (long desde = 0; desde < cantidad; desde += NUMEROS_POR_BLOQUE) {
+                if (pendientes.size() == enVuelo) {
+                    libres.add(escribir(canal, pendientes.poll()));
+                }
+                ByteBuffer bufer = libres.poll();
+                SplittableRandom aleatorio = raiz.split();
+                int numeros = (int) Math.min(NUMEROS_POR_BLOQUE, cantidad - desde);
+                pendientes.add(ejecutor.submit(() -> llenar(bufer, aleatorio, numeros, codificacion, conCategorias)));
+            }
+            while (!pendientes.isEmpty()) {
+                escribir(canal, pendientes.poll());
+            }
+            if (codificacion != TEXTO) {
+                new FormatoBinario.Cabecera(codificacion, conCategorias, cantidad).escribir(canal);
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    private static ByteBuffer escribir(FileChannel canal, Future<ByteBuffer> bloque) throws IOException {
+        ByteBuffer bufer;
+        try {
+            bufer = bloque.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Generación interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        while (bufer.hasRemaining()) {
+            canal.write(bufer);
+        }
+        return bufer;
+    }
+
+    private ByteBuffer llenar(ByteBuffer bufer, SplittableRandom aleatorio, int numeros, int codificacion,
+                              boolean conCategorias) {
+        bufer.clear();
+        byte[] digitos = new byte[TEXTO_MAXIMO];
+        for (int i = 0; i < numeros; i++) {
+            int valor = siguiente(aleatorio);
+            if (codificacion == TEXTO) {
+                escribirDecimal(bufer, valor, digitos);
+            } else {
+                FormatoBinario.codificar(bufer, valor, codificacion, conCategorias);
+            }
+        }
+        bufer.flip();
+        return bufer;
+    }
+
+    /**
+     * Escribe el valor en decimal seguido de un salto de línea, sin crear cadenas
+     */
+    private static void escribirDecimal(ByteBuffer bufer, int valor, byte[] digitos) {
+        long resto = valor;
+        if (resto < 0) {
+            bufer.put((byte) '-');
+            resto = -resto;
+        }
+        int i = digitos.length;
+        do {
+            digitos[--i] = (byte) ('0' + resto % 10);
+            resto /= 10;
+        } while (resto > 0);
+        bufer.put(digitos, i, digitos.length - i);
+        bufer.put((byte) '\n');
+    }
+
+    /**
+     * Un número de la distribución; también lo usa {@link LectorSintetico}
+     */
+    int siguiente(SplittableRandom aleatorio) {
+        switch (distribucion) {
+            case PRIMOS:
+                return aleatorio.nextBoolean() ? primoCercano(uniforme(aleatorio)) : uniforme(aleatorio);
+            case PARES:
+                return par(aleatorio);
+            case GRANDES:
+                // La raíz cúbica de un uniforme tiene densidad 3x², creciente hacia el máximo
+                long rango = (long) maximo - minimo + 1;
+                return (int) Math.min(maximo, minimo + (long) (rango * Math.cbrt(aleatorio.nextDouble())));
+            case ADVERSARIA:
+                return deCategoria(aleatorio);
+            default:
+                return uniforme(aleatorio);
+        }
+    }
+
+    private int uniforme(SplittableRandom aleatorio) {
+        return (int) aleatorio.nextLong(minimo, maximo + 1L);
+    }
+
+    /**
+     * Un par uniforme del rango: el doble de una mitad uniforme
+     */
+    private int par(SplittableRandom aleatorio) {
+        return (int) (2 * aleatorio.nextLong(mitadMinima, mitadMaxima + 1));
+    }
+
+    /**
+     * El primer primo desde el valor hacia arriba, o hacia abajo si no hay hasta el máximo
+     */
+    private int primoCercano(int valor) {
+        Primalidad primalidad = Primalidad.compartida();
+        for (long candidato = valor; candidato <= maximo; candidato++) {
+            if (primalidad.esPrimo((int) candidato)) {
+                return (int) candidato;
+            }
+        }
+        for (long candidato = valor - 1L; candidato >= minimo; candidato--) {
+            if (primalidad.esPrimo((int) candidato)) {
+                return (int) candidato;
+            }
+        }
+        throw new IllegalArgumentException("No hay primos entre " + minimo + " y " + maximo);
+    }
+
+    private int deCategoria(SplittableRandom aleatorio) {
+        if (categoria.equals("primo")) {
+            return primoCercano(uniforme(aleatorio));
+        }
+        Primalidad primalidad = Primalidad.compartida();
+        boolean buscaPar = categoria.equals("par");
+        for (int intento = 0; intento < INTENTOS; intento++) {
+            int valor = uniforme(aleatorio);
+            if (((valor & 1) == 0) == buscaPar && !primalidad.esPrimo(valor)) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("No se encontraron números solo " + categoria
+            + " entre " + minimo + " y " + maximo);
+    }
+}
@@ -0,0 +1,92 @@
+package productorconsumidor;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma concurrente de duraciones en nanosegundos con cubetas por potencia
+ * de dos: la cubeta b cuenta las duraciones de b bits significativos, es decir
+ * [2^(b-1), 2^b). Registrar es un incremento de {@link LongAdder}, así que
+ * muchos hilos pueden hacerlo a la vez sin competir; los percentiles son
+ * aproximados, con un error de a lo sumo el doble del valor real.
+ */
+class HistogramaLatencias {
+    private static final int CUBETAS = 64;
+
+    private final LongAdder[] cubetas = new LongAdder[CUBETAS];
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    public HistogramaLatencias() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas[i] = new LongAdder();
+        }
+    }
+
+    public void registrar(long nanos) {
+        if (nanos < 0) {
+            nanos = 0; // nanoTime de distintos núcleos puede retroceder levemente
+        }
+        cubetas[64 - Long.numberOfLeadingZeros(nanos)].increment();
+        cantidad.increment();
+        suma.add(nanos);
+        maximo.accumulate(nanos);
+    }
+
+    public long getCantidad() {
+        return cantidad.sum();
+    }
+
+    /**
+     * Suma de todas las duraciones registradas
+     */
+    public long getSuma() {
+        return suma.sum();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    public double getMedia() {
+        long total = cantidad.sum();
+        return total == 0 ? 0.0 : (double) suma.sum() / total;
+    }
+
+    /**
+     * Límite superior de la cubeta en la que cae el percentil indicado (entre 0 y
+     * 1), acotado por el máximo registrado. Devuelve 0 si no hay registros.
+     */
+    public long percentil(double fraccion) {
+        long[] copia = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cubetas[i].sum();
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long objetivo = (long) Math.ceil(fraccion * total);
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= Math.max(1, objetivo)) {
+                long limite = i == 0 ? 0 : (1L << i) - 1;
+                return Math.min(limite, maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    public void reiniciar() {
+        for (LongAdder cubeta : cubetas) {
+            cubeta.reset();
+        }
+        cantidad.reset();
+        suma.reset();
+        maximo.reset();
+    }
+}
@@ -0,0 +1,133 @@
+package productorconsumidor;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lee un archivo en el {@link FormatoBinario} mapeado en memoria, por ventanas
+ * como {@link LectorMapeado}, pero sin separar ni convertir texto: cada lote se
+ * decodifica en un recorrido de la ventana. Si el archivo trae las categorías
+ * tampoco se clasifica.
+ */
+class LectorBinario implements LectorProductos {
+    private static final long TAMANO_VENTANA = 64L * 1024 * 1024;
+
+    private final FileChannel canal;
+    private final FormatoBinario.Cabecera cabecera;
+    private final long finTramo;
+
+    private MappedByteBuffer ventana;
+    private long inicioVentana;
+    private int posicion;
+    private boolean clasificar = true;
+
+    public LectorBinario(Path archivo) throws IOException {
+        this(archivo, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Lee solo los bytes [inicio, fin) del archivo, que deben caer en inicios de
+     * registro (ver {@link FormatoBinario#dividir}); la cabecera nunca se lee como datos
+     */
+    public LectorBinario(Path archivo, long inicio, long fin) throws IOException {
+        this.canal = FileChannel.open(archivo, StandardOpenOption.READ);
+        try {
+            this.cabecera = FormatoBinario.Cabecera.leer(canal);
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+        this.finTramo = Math.min(fin, canal.size());
+        mapear(Math.min(Math.max(inicio, FormatoBinario.CABECERA), finTramo));
+    }
+
+    @Override
+    public int leer(long[] destino, int cantidad) throws IOException {
+        int leidos = 0;
+        while (leidos < cantidad) {
+            if (ventana.limit() - posicion < FormatoBinario.REGISTRO_MAXIMO && inicioVentana + ventana.limit() < finTramo) {
+                mapear(inicioVentana + posicion); // El registro puede continuar en la siguiente ventana
+            }
+            if (posicion == ventana.limit()) {
+                break;
+            }
+            int decodificados = cabecera.getCodificacion() == FormatoBinario.INT32
+                ? leerInt32(destino, leidos, cantidad - leidos)
+                : leerVarint(destino, leidos, cantidad - leidos);
+            if (decodificados == 0) {
+                System.err.println("Registro incompleto al final del archivo en la posición " + getPosicion());
+                posicion = ventana.limit();
+                break;
+            }
+            leidos += decodificados;
+        }
+        return leidos;
+    }
+
+    private int leerInt32(long[] destino, int desde, int cantidad) {
+        boolean categorias = cabecera.isConCategorias();
+        int tamanoRegistro = cabecera.getTamanoRegistro();
+        int registros = Math.min(cantidad, (ventana.limit() - posicion) / tamanoRegistro);
+        int p = posicion;
+        for (int i = 0; i < registros; i++) {
+            byte banderas = categorias ? ventana.get(p + 4) : 0;
+            destino[desde + i] = FormatoBinario.producto(ventana.getInt(p), banderas, categorias, clasificar);
+            p += tamanoRegistro;
+        }
+        posicion = p;
+        return registros;
+    }
+
+    private int leerVarint(long[] destino, int desde, int cantidad) {
+        boolean categorias = cabecera.isConCategorias();
+        // Fuera de la última ventana se deja lugar para un registro completo,
+        // así no hace falta comprobar el límite en cada byte
+        boolean ultima = inicioVentana + ventana.limit() >= finTramo;
+        int limite = ultima ? ventana.limit() : ventana.limit() - FormatoBinario.REGISTRO_MAXIMO + 1;
+        int p = posicion;
+        int registros = 0;
+        while (registros < cantidad && p < limite) {
+            long codigo = 0;
+            int desplazamiento = 0;
+            byte b;
+            do {
+                if (p == ventana.limit()) {
+                    return registros; // Registro cortado al final del archivo
+                }
+                b = ventana.get(p++);
+                codigo |= (long) (b & 0x7F) << desplazamiento;
+                desplazamiento += 7;
+            } while (b < 0);
+            posicion = p;
+            destino[desde + registros++] = FormatoBinario.productoVarint(codigo, categorias, clasificar);
+        }
+        return registros;
+    }
+
+    @Override
+    public void setClasificar(boolean clasificar) {
+        this.clasificar = clasificar;
+    }
+
+    @Override
+    public long getPosicion() {
+        return inicioVentana + posicion;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    private void mapear(long desde) throws IOException {
+        long tamano = Math.min(TAMANO_VENTANA, finTramo - desde);
+        ventana = canal.map(FileChannel.MapMode.READ_ONLY, desde, tamano);
+        ventana.order(ByteOrder.LITTLE_ENDIAN);
+        inicioVentana = desde;
+        posicion = 0;
+    }
+}
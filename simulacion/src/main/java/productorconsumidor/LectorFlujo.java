@@ -0,0 +1,272 @@
+package productorconsumidor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lee productos de un flujo de bytes sin fin conocido: la entrada estándar,
+ * una tubería con nombre o un archivo que crece (ver {@link Seguimiento}). El
+ * texto y el {@link FormatoBinario} se reconocen por la firma, como en los
+ * archivos. Los bytes se leen de a bloques en un búfer propio y un número
+ * cortado entre dos lecturas se completa con la siguiente.
+ *
+ * Una lectura de un lote espera solo hasta tener el primer producto; después
+ * entrega lo que ya llegó en vez de bloquearse esperando completar el lote.
+ */
+class LectorFlujo implements LectorProductos {
+    private static final int TAMANO_BUFER = 64 * 1024;
+
+    private final InputStream entrada;
+    private final byte[] bufer = new byte[TAMANO_BUFER];
+    private final ByteBuffer vista = ByteBuffer.wrap(bufer).order(ByteOrder.LITTLE_ENDIAN);
+    private final FormatoBinario.Cabecera cabecera; // null en texto
+    private int posicion;
+    private int limite;
+    private long inicioBufer;  // Posición en el flujo de bufer[0]
+    private boolean terminado;
+    private boolean clasificar = true;
+
+    /**
+     * @param inicio posición del flujo desde la que se entregan productos, al
+     *               reanudar desde un punto de control; los bytes anteriores se descartan
+     */
+    public LectorFlujo(InputStream entrada, long inicio) throws IOException {
+        this.entrada = entrada;
+
+        // El texto nunca empieza con la "P" de la firma: solo entonces hace
+        // falta esperar la cabecera completa
+        llenar(true);
+        if (limite > 0 && bufer[0] == 'P') {
+            while (limite < FormatoBinario.CABECERA && llenar(true)) {
+                // Leer hasta completar la cabecera o llegar al final
+            }
+        }
+        if (FormatoBinario.esBinario(ByteBuffer.wrap(bufer, 0, limite))) {
+            cabecera = FormatoBinario.Cabecera.leer(ByteBuffer.wrap(bufer, 0, limite));
+            posicion = FormatoBinario.CABECERA;
+        } else {
+            cabecera = null;
+        }
+
+        while (getPosicion() < inicio && (posicion < limite || llenar(true))) {
+            posicion += (int) Math.min(limite - posicion, inicio - getPosicion());
+        }
+    }
+
+    @Override
+    public int leer(long[] destino, int cantidad) throws IOException {
+        int leidos = 0;
+        while (leidos < cantidad) {
+            // Con algo leído se entrega lo que hay en vez de esperar más datos
+            boolean bloquear = leidos == 0;
+            long producto = cabecera == null ? siguienteTexto(bloquear) : siguienteBinario(bloquear);
+            if (producto == ProductoEmpaquetado.NINGUNO) {
+                break;
+            }
+            destino[leidos++] = producto;
+        }
+        return leidos;
+    }
+
+    /**
+     * @return el siguiente producto, o NINGUNO al final del flujo o si no
+     *         bloquear y hace falta esperar datos
+     */
+    private long siguienteTexto(boolean bloquear) throws IOException {
+        while (true) {
+            // Saltar separadores
+            while (true) {
+                if (posicion == limite && !llenar(bloquear)) {
+                    return ProductoEmpaquetado.NINGUNO;
+                }
+                if (!LectorMapeado.esSeparador(bufer[posicion])) {
+                    break;
+                }
+                posicion++;
+            }
+
+            // Buscar el fin del elemento; si llega al final de lo leído, leer más
+            int largo = 0;
+            while (true) {
+                while (posicion + largo < limite && !LectorMapeado.esSeparador(bufer[posicion + largo])) {
+                    largo++;
+                }
+                if (posicion + largo < limite) {
+                    break;
+                }
+                if (!llenar(bloquear)) {
+                    if (terminado || largo == bufer.length) {
+                        break; // El elemento termina con el flujo, o no cabe en el búfer
+                    }
+                    return ProductoEmpaquetado.NINGUNO;
+                }
+            }
+
+            int inicioElemento = posicion;
+            posicion += largo;
+            long convertido = LectorMapeado.convertir(vista, inicioElemento, posicion);
+            if (convertido != LectorMapeado.INVALIDO) {
+                return ProductoEmpaquetado.empaquetar((int) convertido, clasificar);
+            }
+            System.err.println("Error al parsear número: " + LectorMapeado.texto(vista, inicioElemento, posicion));
+        }
+    }
+
+    private long siguienteBinario(boolean bloquear) throws IOException {
+        while (true) {
+            int tamano = tamanoRegistro();
+            if (tamano > 0) {
+                long producto;
+                if (cabecera.getCodificacion() == FormatoBinario.INT32) {
+                    byte banderas = cabecera.isConCategorias() ? bufer[posicion + 4] : 0;
+                    producto = FormatoBinario.producto(vista.getInt(posicion), banderas, cabecera.isConCategorias(),
+                        clasificar);
+                } else {
+                    long codigo = 0;
+                    for (int i = 0; i < tamano; i++) {
+                        codigo |= (long) (bufer[posicion + i] & 0x7F) << (7 * i);
+                    }
+                    producto = FormatoBinario.productoVarint(codigo, cabecera.isConCategorias(), clasificar);
+                }
+                posicion += tamano;
+                return producto;
+            }
+            if (!llenar(bloquear)) {
+                if (terminado && posicion < limite) {
+                    System.err.println("Registro incompleto al final de la entrada en la posición " + getPosicion());
+                    posicion = limite;
+                }
+                return ProductoEmpaquetado.NINGUNO;
+            }
+        }
+    }
+
+    /**
+     * Bytes del registro que empieza en la posición, o -1 si aún no llegó completo
+     */
+    private int tamanoRegistro() {
+        int disponibles = limite - posicion;
+        if (cabecera.getCodificacion() == FormatoBinario.INT32) {
+            return disponibles >= cabecera.getTamanoRegistro() ? cabecera.getTamanoRegistro() : -1;
+        }
+        for (int i = 0; i < Math.min(disponibles, FormatoBinario.REGISTRO_MAXIMO); i++) {
+            if (bufer[posicion + i] >= 0) {
+                return i + 1;
+            }
+        }
+        return disponibles >= FormatoBinario.REGISTRO_MAXIMO ? FormatoBinario.REGISTRO_MAXIMO : -1;
+    }
+
+    /**
+     * Mueve lo no consumido al principio del búfer y lee más a continuación
+     *
+     * @param bloquear si es false y no hay datos disponibles, no lee
+     * @return false al final del flujo, con el búfer lleno o si no había datos sin bloquear
+     */
+    private boolean llenar(boolean bloquear) throws IOException {
+        if (terminado || (!bloquear && entrada.available() == 0)) {
+            return false;
+        }
+        if (posicion > 0) {
+            System.arraycopy(bufer, posicion, bufer, 0, limite - posicion);
+            inicioBufer += posicion;
+            limite -= posicion;
+            posicion = 0;
+        }
+        if (limite == bufer.length) {
+            return false;
+        }
+        int leidos = entrada.read(bufer, limite, bufer.length - limite);
+        if (leidos < 0) {
+            terminado = true;
+            return false;
+        }
+        limite += leidos;
+        return true;
+    }
+
+    @Override
+    public void setClasificar(boolean clasificar) {
+        this.clasificar = clasificar;
+    }
+
+    /**
+     * Bytes del flujo consumidos hasta el último producto leído
+     */
+    @Override
+    public long getPosicion() {
+        return inicioBufer + posicion;
+    }
+
+    @Override
+    public void close() throws IOException {
+        entrada.close();
+    }
+
+    /**
+     * Sigue un archivo que crece, como tail -f: al llegar al final espera y
+     * vuelve a intentar, así que el flujo no termina nunca. Si el archivo se
+     * trunca se sigue desde el principio.
+     */
+    static final class Seguimiento extends InputStream {
+        private final FileChannel canal;
+        private final long esperaMs;
+        private long posicion;
+
+        /**
+         * @param esperaMs espera entre comprobaciones al llegar al final
+         */
+        Seguimiento(Path archivo, long esperaMs) throws IOException {
+            this.canal = FileChannel.open(archivo, StandardOpenOption.READ);
+            this.esperaMs = esperaMs;
+        }
+
+        @Override
+        public int read(byte[] destino, int desde, int cantidad) throws IOException {
+            if (cantidad == 0) {
+                return 0;
+            }
+            while (true) {
+                int leidos = canal.read(ByteBuffer.wrap(destino, desde, cantidad), posicion);
+                if (leidos > 0) {
+                    posicion += leidos;
+                    return leidos;
+                }
+                if (canal.size() < posicion) {
+                    System.err.println("El archivo seguido se truncó; se sigue desde el principio");
+                    posicion = 0;
+                    continue;
+                }
+                try {
+                    Thread.sleep(esperaMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Seguimiento interrumpido");
+                }
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] uno = new byte[1];
+            read(uno, 0, 1);
+            return uno[0] & 0xFF;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.max(0, Math.min(Integer.MAX_VALUE, canal.size() - posicion));
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package productorconsumidor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lee enteros en texto ASCII separados por espacios o saltos de línea desde un
+ * archivo mapeado en memoria. El archivo se recorre por ventanas de tamaño fijo
+ * y los números se convierten directamente desde los bytes, sin crear cadenas
+ * ni arreglos por número. Puede limitarse a un tramo del archivo para que
+ * varios productores lo lean en paralelo (ver {@link #dividirEnLineas}).
+ */
+class LectorMapeado implements LectorProductos {
+    private static final long TAMANO_VENTANA = 64L * 1024 * 1024;
+    // Resultado de convertir un elemento que no es un entero válido
+    static final long INVALIDO = Long.MIN_VALUE;
+
+    private final FileChannel canal;
+    private final long finTramo;
+
+    private MappedByteBuffer ventana;
+    private long inicioVentana;
+    private int posicion;
+    private int valor;
+    private boolean clasificar = true;
+
+    public LectorMapeado(Path archivo) throws IOException {
+        this(archivo, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Lee solo los bytes [inicio, fin) del archivo. Los límites deben caer en
+     * inicios de línea para no cortar números.
+     */
+    public LectorMapeado(Path archivo, long inicio, long fin) throws IOException {
+        this.canal = FileChannel.open(archivo, StandardOpenOption.READ);
+        this.finTramo = Math.min(fin, canal.size());
+        mapear(Math.min(inicio, finTramo));
+    }
+
+    /**
+     * Divide el archivo en partes tramos consecutivos de tamaño similar, moviendo
+     * cada límite hasta justo después del siguiente salto de línea
+     *
+     * @return partes + 1 posiciones; el tramo i es [limites[i], limites[i + 1])
+     */
+    public static long[] dividirEnLineas(Path archivo, int partes) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            long[] limites = new long[partes + 1];
+            limites[partes] = tamano;
+
+            ByteBuffer bloque = ByteBuffer.allocate(4096);
+            for (int i = 1; i < partes; i++) {
+                long posicion = Math.max(tamano * i / partes, limites[i - 1]);
+                limites[i] = tamano;
+
+                // Buscar el siguiente salto de línea a partir de la posición nominal
+                buscar:
+                while (posicion < tamano) {
+                    bloque.clear();
+                    int leidos = canal.read(bloque, posicion);
+                    for (int j = 0; j < leidos; j++) {
+                        if (bloque.get(j) == '\n') {
+                            limites[i] = posicion + j + 1;
+                            break buscar;
+                        }
+                    }
+                    posicion += leidos;
+                }
+            }
+            return limites;
+        }
+    }
+
+    /**
+     * Avanza al siguiente número del archivo. Los elementos que no son enteros
+     * válidos se informan por la salida de error y se saltan.
+     *
+     * @return false cuando no quedan más números
+     */
+    public boolean siguiente() throws IOException {
+        while (true) {
+            // Saltar separadores, cambiando de ventana si es necesario
+            while (true) {
+                if (posicion == ventana.limit()) {
+                    if (inicioVentana + posicion >= finTramo) {
+                        return false;
+                    }
+                    mapear(inicioVentana + posicion);
+                }
+                if (!esSeparador(ventana.get(posicion))) {
+                    break;
+                }
+                posicion++;
+            }
+
+            int inicioElemento = posicion;
+            int fin = buscarFinElemento(inicioElemento);
+            if (fin == ventana.limit() && inicioVentana + fin < finTramo && inicioElemento > 0) {
+                // El elemento continúa en la siguiente ventana: volver a mapear desde su inicio
+                mapear(inicioVentana + inicioElemento);
+                inicioElemento = 0;
+                fin = buscarFinElemento(0);
+            }
+            posicion = fin;
+
+            long convertido = convertir(ventana, inicioElemento, fin);
+            if (convertido != INVALIDO) {
+                valor = (int) convertido;
+                return true;
+            }
+            System.err.println("Error al parsear número: " + texto(ventana, inicioElemento, fin));
+        }
+    }
+
+    /**
+     * Valor del último número leído con {@link #siguiente()}
+     */
+    public int valor() {
+        return valor;
+    }
+
+    /**
+     * Lee y clasifica hasta cantidad números
+     */
+    @Override
+    public int leer(long[] destino, int cantidad) throws IOException {
+        int leidos = 0;
+        while (leidos < cantidad && siguiente()) {
+            destino[leidos++] = ProductoEmpaquetado.empaquetar(valor, clasificar);
+        }
+        return leidos;
+    }
+
+    @Override
+    public void setClasificar(boolean clasificar) {
+        this.clasificar = clasificar;
+    }
+
+    /**
+     * Posición en bytes del siguiente carácter sin leer
+     */
+    @Override
+    public long getPosicion() {
+        return inicioVentana + posicion;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    private void mapear(long desde) throws IOException {
+        long tamano = Math.min(TAMANO_VENTANA, finTramo - desde);
+        ventana = canal.map(FileChannel.MapMode.READ_ONLY, desde, tamano);
+        inicioVentana = desde;
+        posicion = 0;
+    }
+
+    private int buscarFinElemento(int desde) {
+        int fin = desde;
+        int limite = ventana.limit();
+        while (fin < limite && !esSeparador(ventana.get(fin))) {
+            fin++;
+        }
+        return fin;
+    }
+
+    /**
+     * Convierte los bytes [inicio, fin) en un entero con signo opcional
+     *
+     * @return el valor, o {@link #INVALIDO} si no es un entero válido o no cabe en un int
+     */
+    static long convertir(ByteBuffer bytes, int inicio, int fin) {
+        boolean negativo = false;
+        int i = inicio;
+        byte primero = bytes.get(i);
+        if (primero == '-' || primero == '+') {
+            negativo = primero == '-';
+            i++;
+        }
+        if (i == fin) {
+            return INVALIDO;
+        }
+
+        long acumulado = 0;
+        for (; i < fin; i++) {
+            int digito = bytes.get(i) - '0';
+            if (digito < 0 || digito > 9) {
+                return INVALIDO;
+            }
+            acumulado = acumulado * 10 + digito;
+            if (acumulado > (long) Integer.MAX_VALUE + 1) {
+                return INVALIDO;
+            }
+        }
+
+        if (negativo) {
+            acumulado = -acumulado;
+        }
+        if (acumulado > Integer.MAX_VALUE) {
+            return INVALIDO;
+        }
+        return acumulado;
+    }
+
+    /**
+     * Texto del elemento, solo para los mensajes de error
+     */
+    static String texto(ByteBuffer bytes, int inicio, int fin) {
+        byte[] copia = new byte[Math.min(fin - inicio, 64)];
+        bytes.get(inicio, copia);
+        return new String(copia, StandardCharsets.US_ASCII);
+    }
+
+    static boolean esSeparador(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+}
@@ -0,0 +1,72 @@
+package productorconsumidor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fuente de productos del {@link Productor}: lee números y los entrega ya
+ * empaquetados, de a lotes.
+ */
+interface LectorProductos extends Closeable {
+    /**
+     * Lee hasta cantidad productos empaquetados en destino, desde el índice 0
+     *
+     * @return la cantidad leída; 0 cuando no quedan más
+     */
+    int leer(long[] destino, int cantidad) throws IOException;
+
+    /**
+     * Con false los productos se leen sin clasificar, marcados con
+     * {@link ProductoEmpaquetado#SIN_CLASIFICAR}, para que los clasifique otra etapa
+     */
+    void setClasificar(boolean clasificar);
+
+    /**
+     * Posición justo después del último producto leído: en bytes para archivos
+     * y flujos, en números generados para la fuente sintética
+     */
+    long getPosicion();
+
+    /**
+     * Abre el lector en el hilo del productor, que es quien lo cierra
+     */
+    @FunctionalInterface
+    interface Fuente {
+        LectorProductos abrir() throws IOException;
+    }
+
+    /**
+     * Abre el tramo [inicio, fin) del archivo, en texto o en el formato de
+     * {@link FormatoBinario} según su firma
+     */
+    static LectorProductos abrir(Path archivo, long inicio, long fin) throws IOException {
+        if (esBinario(archivo)) {
+            return new LectorBinario(archivo, inicio, fin);
+        }
+        return new LectorMapeado(archivo, inicio, fin);
+    }
+
+    /**
+     * Divide el archivo en partes tramos para leerlo en paralelo, alineados a
+     * líneas en texto y a registros en binario
+     *
+     * @return partes + 1 posiciones; el tramo i es [limites[i], limites[i + 1])
+     */
+    static long[] dividir(Path archivo, int partes) throws IOException {
+        if (esBinario(archivo)) {
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                return FormatoBinario.dividir(canal, partes);
+            }
+        }
+        return LectorMapeado.dividirEnLineas(archivo, partes);
+    }
+
+    private static boolean esBinario(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            return FormatoBinario.esBinario(canal);
+        }
+    }
+}
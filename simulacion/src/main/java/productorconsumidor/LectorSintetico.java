@@ -0,0 +1,52 @@
+package productorconsumidor;
+
+import java.util.SplittableRandom;
+
+/**
+ * Fuente sintética en memoria: genera los números al leerlos con una de las
+ * distribuciones de {@link GeneradorParalelo}, sin archivo. Con la misma
+ * semilla produce siempre la misma secuencia.
+ */
+class LectorSintetico implements LectorProductos {
+    private final GeneradorParalelo generador;
+    private final SplittableRandom aleatorio;
+    private final long cantidad;
+    private long generados;
+    private boolean clasificar = true;
+
+    /**
+     * @param cantidad números a generar; con Long.MAX_VALUE no termina en la práctica
+     */
+    public LectorSintetico(GeneradorParalelo generador, SplittableRandom aleatorio, long cantidad) {
+        this.generador = generador;
+        this.aleatorio = aleatorio;
+        this.cantidad = cantidad;
+    }
+
+    @Override
+    public int leer(long[] destino, int cantidadLote) {
+        int numeros = (int) Math.min(cantidadLote, cantidad - generados);
+        for (int i = 0; i < numeros; i++) {
+            destino[i] = ProductoEmpaquetado.empaquetar(generador.siguiente(aleatorio), clasificar);
+        }
+        generados += numeros;
+        return numeros;
+    }
+
+    @Override
+    public void setClasificar(boolean clasificar) {
+        this.clasificar = clasificar;
+    }
+
+    /**
+     * Cantidad de números generados
+     */
+    @Override
+    public long getPosicion() {
+        return generados;
+    }
+
+    @Override
+    public void close() {
+    }
+}
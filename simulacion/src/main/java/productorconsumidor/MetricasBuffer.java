@@ -0,0 +1,251 @@
+package productorconsumidor;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Instrumentación de un {@link BufferCompartido}: cuánto tiempo pasa cada producto
+ * en el buffer, cuánto esperan los productores por espacio y los consumidores por
+ * su categoría y por el mutex, productos puestos y tomados, y ocupación actual.
+ *
+ * El buffer solo la usa si se le pasa con {@link BufferCompartido#instrumentar};
+ * sin ella cada operación hace una comparación con null y no mide tiempos. Con
+ * ella los registros son incrementos de {@link LongAdder}, que no compiten entre
+ * hilos. Los datos se publican como MXBean y en un informe de texto periódico.
+ */
+class MetricasBuffer implements MetricasBufferMXBean {
+    // Mismo orden que los índices de categoría de los buffers
+    static final String[] TIPOS = {"par", "impar", "primo"};
+
+    private static final String NOMBRE_JMX = "productorconsumidor:type=MetricasBuffer";
+
+    private final BufferCompartido buffer;
+
+    private final LongAdder puestos = new LongAdder();
+    private final LongAdder[] tomados = new LongAdder[TIPOS.length];
+
+    private final HistogramaLatencias[] tiempoEnBuffer = new HistogramaLatencias[TIPOS.length];
+    private final HistogramaLatencias[] esperaCategoria = new HistogramaLatencias[TIPOS.length];
+    private final HistogramaLatencias esperaEspacio = new HistogramaLatencias();
+    private final HistogramaLatencias esperaMutex = new HistogramaLatencias();
+
+    // Valores del informe anterior, para calcular el rendimiento del intervalo
+    private long puestosInformados;
+    private long nanosInforme = System.nanoTime();
+    private ScheduledExecutorService informes;
+
+    public MetricasBuffer(BufferCompartido buffer) {
+        this.buffer = buffer;
+        for (int i = 0; i < TIPOS.length; i++) {
+            tomados[i] = new LongAdder();
+            tiempoEnBuffer[i] = new HistogramaLatencias();
+            esperaCategoria[i] = new HistogramaLatencias();
+        }
+    }
+
+    /**
+     * Registra una espera por espacio libre que empezó en inicio (System.nanoTime)
+     *
+     * @return el instante actual, para encadenar la siguiente medición
+     */
+    public long registrarEsperaEspacio(long inicio) {
+        long ahora = System.nanoTime();
+        esperaEspacio.registrar(ahora - inicio);
+        return ahora;
+    }
+
+    /**
+     * Registra una espera por el mutex; devuelve el instante actual
+     */
+    public long registrarEsperaMutex(long inicio) {
+        long ahora = System.nanoTime();
+        esperaMutex.registrar(ahora - inicio);
+        return ahora;
+    }
+
+    /**
+     * Registra una espera de un consumidor por productos de su categoría;
+     * devuelve el instante actual
+     */
+    public long registrarEsperaCategoria(int categoria, long inicio) {
+        long ahora = System.nanoTime();
+        esperaCategoria[categoria].registrar(ahora - inicio);
+        return ahora;
+    }
+
+    public void registrarPuestos(int cantidad) {
+        puestos.add(cantidad);
+    }
+
+    /**
+     * Registra la toma de un producto que entró al buffer en el instante insercion
+     */
+    public void registrarTomado(int categoria, long insercion, long ahora) {
+        tomados[categoria].increment();
+        tiempoEnBuffer[categoria].registrar(ahora - insercion);
+    }
+
+    /**
+     * Tiempo total que los productores esperaron por espacio, en nanosegundos
+     */
+    public long getNanosEsperaProductores() {
+        return esperaEspacio.getSuma();
+    }
+
+    /**
+     * Tiempo total que los consumidores esperaron por productos de su
+     * categoría, en nanosegundos
+     */
+    public long getNanosEsperaConsumidores() {
+        long total = 0;
+        for (HistogramaLatencias histograma : esperaCategoria) {
+            total += histograma.getSuma();
+        }
+        return total;
+    }
+
+    /**
+     * Publica las métricas en el servidor de MBeans de la plataforma
+     */
+    public void registrarMBean() {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nombre = new ObjectName(NOMBRE_JMX);
+            if (servidor.isRegistered(nombre)) {
+                servidor.unregisterMBean(nombre);
+            }
+            servidor.registerMBean(this, nombre);
+        } catch (JMException e) {
+            System.err.println("No se pudieron publicar las métricas por JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Entrega el informe a la salida cada tantos segundos desde un hilo demonio
+     */
+    public synchronized void iniciarInformes(int segundos, Consumer<String> salida) {
+        if (informes != null) {
+            return;
+        }
+        informes = Planificador.demonio("informe-metricas");
+        informes.scheduleAtFixedRate(() -> salida.accept(getInforme()), segundos, segundos, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public long getProductosPuestos() {
+        return puestos.sum();
+    }
+
+    @Override
+    public Map<String, Long> getProductosTomados() {
+        Map<String, Long> mapa = new LinkedHashMap<>();
+        for (int i = 0; i < TIPOS.length; i++) {
+            mapa.put(TIPOS[i], tomados[i].sum());
+        }
+        return mapa;
+    }
+
+    @Override
+    public int getOcupacion() {
+        return buffer.getTamano();
+    }
+
+    @Override
+    public int getCapacidad() {
+        return buffer.getCapacidad();
+    }
+
+    @Override
+    public Map<String, Integer> getPendientes() {
+        Map<String, Integer> mapa = new LinkedHashMap<>();
+        for (String tipo : TIPOS) {
+            mapa.put(tipo, buffer.getPendientes(tipo));
+        }
+        return mapa;
+    }
+
+    @Override
+    public Map<String, Long> getDescartados() {
+        return buffer.getDescartados();
+    }
+
+    @Override
+    public Map<String, Double> getLatenciasMicros() {
+        Map<String, Double> mapa = new LinkedHashMap<>();
+        for (Map.Entry<String, HistogramaLatencias> entrada : histogramas().entrySet()) {
+            HistogramaLatencias histograma = entrada.getValue();
+            String prefijo = entrada.getKey() + ".";
+            mapa.put(prefijo + "cantidad", (double) histograma.getCantidad());
+            mapa.put(prefijo + "media", histograma.getMedia() / 1000.0);
+            mapa.put(prefijo + "p50", histograma.percentil(0.50) / 1000.0);
+            mapa.put(prefijo + "p99", histograma.percentil(0.99) / 1000.0);
+            mapa.put(prefijo + "max", histograma.getMaximo() / 1000.0);
+        }
+        return mapa;
+    }
+
+    /**
+     * Informe de varias líneas con rendimiento desde el informe anterior,
+     * ocupación y latencias en microsegundos
+     */
+    @Override
+    public synchronized String getInforme() {
+        long ahora = System.nanoTime();
+        long totalPuestos = puestos.sum();
+        double segundos = (ahora - nanosInforme) / 1_000_000_000.0;
+        double rendimiento = segundos > 0 ? (totalPuestos - puestosInformados) / segundos : 0.0;
+        puestosInformados = totalPuestos;
+        nanosInforme = ahora;
+
+        StringBuilder informe = new StringBuilder();
+        informe.append(String.format("Métricas del buffer: puestos %d (%.0f/s), tomados %s, ocupación %d/%d, pendientes %s%n",
+            totalPuestos, rendimiento, getProductosTomados(), getOcupacion(), getCapacidad(), getPendientes()));
+        Map<String, Long> descartados = getDescartados();
+        if (!descartados.isEmpty()) {
+            informe.append(String.format("  descartados %s%n", descartados));
+        }
+        for (Map.Entry<String, HistogramaLatencias> entrada : histogramas().entrySet()) {
+            HistogramaLatencias histograma = entrada.getValue();
+            informe.append(String.format("  %-22s n=%d media=%.1f p50=%.1f p99=%.1f máx=%.1f µs%n",
+                entrada.getKey(), histograma.getCantidad(), histograma.getMedia() / 1000.0,
+                histograma.percentil(0.50) / 1000.0, histograma.percentil(0.99) / 1000.0,
+                histograma.getMaximo() / 1000.0));
+        }
+        return informe.toString().stripTrailing();
+    }
+
+    @Override
+    public synchronized void reiniciar() {
+        puestos.reset();
+        for (int i = 0; i < TIPOS.length; i++) {
+            tomados[i].reset();
+            tiempoEnBuffer[i].reiniciar();
+            esperaCategoria[i].reiniciar();
+        }
+        esperaEspacio.reiniciar();
+        esperaMutex.reiniciar();
+        puestosInformados = 0;
+        nanosInforme = System.nanoTime();
+    }
+
+    private Map<String, HistogramaLatencias> histogramas() {
+        Map<String, HistogramaLatencias> mapa = new LinkedHashMap<>();
+        for (int i = 0; i < TIPOS.length; i++) {
+            mapa.put("tiempoEnBuffer." + TIPOS[i], tiempoEnBuffer[i]);
+        }
+        mapa.put("esperaEspacio", esperaEspacio);
+        for (int i = 0; i < TIPOS.length; i++) {
+            mapa.put("esperaCategoria." + TIPOS[i], esperaCategoria[i]);
+        }
+        mapa.put("esperaMutex", esperaMutex);
+        return mapa;
+    }
+}
@@ -0,0 +1,53 @@
+package productorconsumidor;
+
+import java.util.Map;
+
+/**
+ * Vista JMX de {@link MetricasBuffer}. Es pública porque JMX solo publica
+ * interfaces públicas; se registra como productorconsumidor:type=MetricasBuffer.
+ */
+public interface MetricasBufferMXBean {
+    /**
+     * Productos puestos en el buffer
+     */
+    long getProductosPuestos();
+
+    /**
+     * Productos tomados por cada tipo de consumidor
+     */
+    Map<String, Long> getProductosTomados();
+
+    /**
+     * Ranuras ocupadas en este momento
+     */
+    int getOcupacion();
+
+    int getCapacidad();
+
+    /**
+     * Productos de cada tipo que esperan ser tomados en este momento
+     */
+    Map<String, Integer> getPendientes();
+
+    /**
+     * Productos descartados por la política de desborde, en total y por tipo;
+     * vacío si el buffer bloquea a los productores
+     */
+    Map<String, Long> getDescartados();
+
+    /**
+     * Cantidad, media, p50, p99 y máximo en microsegundos de cada histograma,
+     * con claves de la forma histograma.estadística (por ejemplo tiempoEnBuffer.par.p99)
+     */
+    Map<String, Double> getLatenciasMicros();
+
+    /**
+     * El mismo informe de texto que se imprime periódicamente
+     */
+    String getInforme();
+
+    /**
+     * Vuelve a cero contadores e histogramas
+     */
+    void reiniciar();
+}
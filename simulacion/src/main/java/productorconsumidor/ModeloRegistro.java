@@ -0,0 +1,67 @@
+package productorconsumidor;
+
+import java.util.List;
+import javax.swing.AbstractListModel;
+
+/**
+ * Modelo del registro de actividad con capacidad fija. Las entradas se guardan
+ * en un anillo y, al llenarse, cada entrada nueva reemplaza a la más antigua.
+ * Se usa solo desde el EDT.
+ */
+class ModeloRegistro extends AbstractListModel<String> {
+    private final String[] entradas;
+    private int inicio = 0;
+    private int cantidad = 0;
+
+    public ModeloRegistro(int capacidad) {
+        this.entradas = new String[capacidad];
+    }
+
+    @Override
+    public int getSize() {
+        return cantidad;
+    }
+
+    @Override
+    public String getElementAt(int indice) {
+        return entradas[(inicio + indice) % entradas.length];
+    }
+
+    /**
+     * Añade una entrada
+     */
+    public void agregar(String entrada) {
+        agregarTodas(List.of(entrada));
+    }
+
+    /**
+     * Añade varias entradas notificando a la vista una sola vez
+     */
+    public void agregarTodas(List<String> nuevas) {
+        if (nuevas.isEmpty()) {
+            return;
+        }
+
+        int cantidadAnterior = cantidad;
+        boolean desplazado = false;
+        for (String entrada : nuevas) {
+            if (cantidad < entradas.length) {
+                entradas[(inicio + cantidad) % entradas.length] = entrada;
+                cantidad++;
+            } else {
+                // Sobrescribir la entrada más antigua
+                entradas[inicio] = entrada;
+                inicio = (inicio + 1) % entradas.length;
+                desplazado = true;
+            }
+        }
+
+        if (cantidad > cantidadAnterior) {
+            fireIntervalAdded(this, cantidadAnterior, cantidad - 1);
+        }
+        if (desplazado) {
+            // Todas las filas visibles se corrieron una o más posiciones
+            fireContentsChanged(this, 0, cantidad - 1);
+        }
+    }
+}
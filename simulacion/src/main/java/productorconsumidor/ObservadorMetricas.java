@@ -0,0 +1,92 @@
+package productorconsumidor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Observador sin interfaz gráfica: no tiene esperas artificiales ni pausa y
+ * solo acumula contadores, para ejecutar el núcleo concurrente a máxima velocidad.
+ */
+class ObservadorMetricas implements ObservadorSimulacion {
+    private final LongAdder producidos = new LongAdder();
+    private final LongAdder consumidos = new LongAdder();
+    private final LongAdder pares = new LongAdder();
+    private final LongAdder impares = new LongAdder();
+    private final LongAdder primos = new LongAdder();
+    private final boolean mostrarMensajes;
+
+    /**
+     * @param mostrarMensajes Si es true, los mensajes de actividad se escriben en la salida estándar
+     */
+    public ObservadorMetricas(boolean mostrarMensajes) {
+        this.mostrarMensajes = mostrarMensajes;
+    }
+
+    @Override
+    public void actualizar(String mensaje) {
+        if (mostrarMensajes) {
+            System.out.println(mensaje);
+        }
+    }
+
+    @Override
+    public void productosProducidos(long[] productos, int cantidad, BufferCompartido buffer) {
+        producidos.add(cantidad);
+    }
+
+    @Override
+    public void productosConsumidos(int idConsumidor, String tipo, long[] productos, int cantidad, long suma,
+                                    BufferCompartido buffer) {
+        contarConsumo(tipo, cantidad);
+    }
+
+    private void contarConsumo(String tipo, int cantidad) {
+        consumidos.add(cantidad);
+        switch (tipo) {
+            case "par":
+                pares.add(cantidad);
+                break;
+            case "impar":
+                impares.add(cantidad);
+                break;
+            case "primo":
+                primos.add(cantidad);
+                break;
+        }
+    }
+
+    @Override
+    public boolean estaPausado() {
+        return false;
+    }
+
+    @Override
+    public int getDelayProductor() {
+        return 0;
+    }
+
+    @Override
+    public int getDelayConsumidor() {
+        return 0;
+    }
+
+    public long getProducidos() {
+        return producidos.sum();
+    }
+
+    public long getConsumidos() {
+        return consumidos.sum();
+    }
+
+    /**
+     * Resumen legible de los contadores y del rendimiento en el tiempo indicado
+     */
+    public String resumen(long nanosTranscurridos) {
+        double segundos = nanosTranscurridos / 1_000_000_000.0;
+        long totalProducidos = producidos.sum();
+        return String.format(
+            "Producidos: %d, Consumidos: %d (pares: %d, impares: %d, primos: %d), " +
+            "Tiempo: %.3f s, Rendimiento: %.0f números/s",
+            totalProducidos, consumidos.sum(), pares.sum(), impares.sum(), primos.sum(),
+            segundos, segundos > 0 ? totalProducidos / segundos : 0.0);
+    }
+}
@@ -0,0 +1,40 @@
+package productorconsumidor;
+
+/**
+ * Recibe los eventos del productor y los consumidores. La interfaz gráfica
+ * ({@link Animacion}) y el modo sin interfaz ({@link ObservadorMetricas}) la
+ * implementan, de modo que el núcleo concurrente no depende de Swing.
+ */
+interface ObservadorSimulacion {
+    /**
+     * Registra un mensaje de actividad
+     */
+    void actualizar(String mensaje);
+
+    /**
+     * El productor puso en el buffer los primeros cantidad productos empaquetados del arreglo
+     */
+    void productosProducidos(long[] productos, int cantidad, BufferCompartido buffer);
+
+    /**
+     * Un consumidor tomó los primeros cantidad productos empaquetados del arreglo;
+     * suma es su suma acumulada. El arreglo se reutiliza después de la llamada.
+     */
+    void productosConsumidos(int idConsumidor, String tipo, long[] productos, int cantidad, long suma,
+                             BufferCompartido buffer);
+
+    /**
+     * Bloquea mientras la simulación esté pausada
+     */
+    boolean estaPausado() throws InterruptedException;
+
+    /**
+     * Espera artificial del productor por producto, en milisegundos
+     */
+    int getDelayProductor();
+
+    /**
+     * Espera artificial de los consumidores por producto, en milisegundos
+     */
+    int getDelayConsumidor();
+}
@@ -0,0 +1,25 @@
+package productorconsumidor;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Ejecutores de las tareas periódicas de la simulación (ajuste de capacidad,
+ * informes de métricas y puntos de control)
+ */
+final class Planificador {
+    private Planificador() {
+    }
+
+    /**
+     * Ejecutor programado con un solo hilo demonio del nombre indicado, para que
+     * la tarea no impida que la JVM termine
+     */
+    static ScheduledExecutorService demonio(String nombre) {
+        return Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, nombre);
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+}
@@ -0,0 +1,241 @@
+package productorconsumidor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ejecuta los consumidores como tareas de un {@link ForkJoinPool} en lugar de un
+ * hilo por consumidor.
+ *
+ * Cada consumidor es una tarea que toma sin esperar los lotes disponibles de su
+ * categoría y, tras unas rondas, se vuelve a encolar en la cola del trabajador
+ * que la ejecuta. Los trabajadores sin tareas roban las de los demás, de modo
+ * que una ráfaga de una categoría (por ejemplo muchos primos) se reparte entre
+ * todos los núcleos en vez de quedar en los hilos fijos de ese tipo.
+ *
+ * Cuando una categoría está vacía, una sola de sus tareas espera en el buffer
+ * mediante {@link ForkJoinPool#managedBlock} (el pool compensa con otro
+ * trabajador) y las demás quedan dormidas fuera del pool. Cada vez que una
+ * tarea obtiene productos despierta a una dormida, de modo que las tareas
+ * activas crecen en cascada con el trabajo disponible. Así los consumidores
+ * inactivos nunca ocupan todos los trabajadores y las demás categorías siguen
+ * avanzando.
+ */
+class PoolConsumidores {
+    // Lotes que procesa una tarea antes de volver a encolarse y ceder el trabajador
+    private static final int RONDAS_POR_TAREA = 64;
+    // Trabajadores adicionales que el pool puede crear mientras otros esperan
+    private static final int MAX_COMPENSACION = 256;
+
+    private final ForkJoinPool pool;
+    private final List<Consumidor> consumidores;
+    private final ObservadorSimulacion observador;
+    private final Map<String, Categoria> categorias = new HashMap<>();
+    // Consumidores que recibieron el cierre del buffer
+    private final CountDownLatch terminados;
+
+    /**
+     * @param paralelismo Trabajadores activos del pool, normalmente la cantidad de núcleos
+     */
+    public PoolConsumidores(List<Consumidor> consumidores, ObservadorSimulacion observador, int paralelismo) {
+        this.consumidores = consumidores;
+        this.observador = observador;
+        this.terminados = new CountDownLatch(consumidores.size());
+        // Modo asíncrono: las tareas nunca se esperan con join, así que se
+        // atienden en orden de llegada. Si se alcanza el límite de trabajadores
+        // de compensación, la espera continúa sin crear otro en lugar de fallar.
+        this.pool = new ForkJoinPool(paralelismo, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true,
+            0, paralelismo + MAX_COMPENSACION, 1, p -> true, 60, TimeUnit.SECONDS);
+    }
+
+    public void iniciar() {
+        for (Consumidor consumidor : consumidores) {
+            Categoria categoria = categorias.computeIfAbsent(consumidor.getTipo(), tipo -> new Categoria());
+            pool.execute(new TareaConsumidor(consumidor, categoria));
+        }
+    }
+
+    /**
+     * Espera a que todos los consumidores terminen por sí mismos tras cerrar el
+     * buffer, y cierra el pool. No basta con que el pool quede quieto: una tarea
+     * en managedBlock no cuenta como activa aunque el buffer aún reciba productos.
+     */
+    public void esperarFin() throws InterruptedException {
+        terminados.await();
+        pool.shutdown();
+
+        for (Consumidor consumidor : consumidores) {
+            consumidor.informarFin();
+        }
+    }
+
+    /**
+     * Detiene los consumidores, interrumpe a los que esperan en el buffer y
+     * espera a lo sumo milisegundos a que el pool termine
+     */
+    public void detener(long milisegundos) throws InterruptedException {
+        for (Consumidor consumidor : consumidores) {
+            consumidor.detener();
+        }
+        pool.shutdownNow();
+        pool.awaitTermination(milisegundos, TimeUnit.MILLISECONDS);
+
+        for (Consumidor consumidor : consumidores) {
+            consumidor.informarFin();
+        }
+    }
+
+    /**
+     * Una ejecución de un consumidor. Nunca corre en paralelo consigo misma: la
+     * siguiente tarea del mismo consumidor se crea al terminar la actual.
+     */
+    private final class TareaConsumidor extends RecursiveAction {
+        private final Consumidor consumidor;
+        private final Categoria categoria;
+
+        TareaConsumidor(Consumidor consumidor, Categoria categoria) {
+            this.consumidor = consumidor;
+            this.categoria = categoria;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                for (int ronda = 0; ronda < RONDAS_POR_TAREA; ronda++) {
+                    if (!consumidor.estaEjecutando() || observador.estaPausado()) {
+                        break;
+                    }
+
+                    int cantidad = consumidor.intentarTomar();
+                    if (cantidad == 0) {
+                        if (!categoria.esperando.compareAndSet(false, true)) {
+                            // Otra tarea de la categoría ya espera: dormir hasta que reciba productos
+                            categoria.dormir(consumidor);
+                            return;
+                        }
+                        EsperaProductos espera = new EsperaProductos(consumidor);
+                        try {
+                            ForkJoinPool.managedBlock(espera);
+                        } finally {
+                            categoria.esperando.set(false);
+                        }
+                        cantidad = espera.cantidad;
+                    }
+                    // Hay trabajo en la categoría, o se cerró el buffer y cada
+                    // consumidor dormido debe despertar para terminar
+                    categoria.despertarUno();
+                    if (cantidad == BufferCompartido.CERRADO) {
+                        terminados.countDown();
+                        return;
+                    }
+                    if (cantidad == 0) {
+                        break; // Consumidor detenido durante la espera
+                    }
+                    consumidor.procesar(cantidad);
+
+                    int delay = observador.getDelayConsumidor();
+                    if (delay > 0) {
+                        ForkJoinPool.managedBlock(new EsperaDelay(delay));
+                    }
+                }
+            } catch (InterruptedException e) {
+                return; // El pool se está cerrando
+            }
+
+            if (consumidor.estaEjecutando()) {
+                new TareaConsumidor(consumidor, categoria).fork();
+            }
+        }
+    }
+
+    /**
+     * Estado compartido por las tareas de un mismo tipo de consumidor
+     */
+    private final class Categoria {
+        final AtomicBoolean esperando = new AtomicBoolean();
+        final ConcurrentLinkedQueue<Consumidor> dormidos = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Deja el consumidor fuera del pool. Si la tarea que esperaba ya terminó
+         * mientras tanto, despierta a uno de inmediato para que la categoría
+         * nunca quede sin una tarea activa o en espera.
+         */
+        void dormir(Consumidor consumidor) {
+            dormidos.add(consumidor);
+            if (!esperando.get()) {
+                despertarUno();
+            }
+        }
+
+        /**
+         * Vuelve a encolar en el pool un consumidor dormido, si hay alguno
+         */
+        void despertarUno() {
+            Consumidor consumidor = dormidos.poll();
+            if (consumidor != null) {
+                new TareaConsumidor(consumidor, this).fork();
+            }
+        }
+    }
+
+    /**
+     * Espera bloqueante a que la categoría del consumidor tenga productos o el
+     * buffer se cierre. Las esperas parciales vencidas se repiten mientras el
+     * consumidor siga en ejecución.
+     */
+    private static final class EsperaProductos implements ForkJoinPool.ManagedBlocker {
+        private final Consumidor consumidor;
+        private int cantidad;
+
+        EsperaProductos(Consumidor consumidor) {
+            this.consumidor = consumidor;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            if (cantidad == 0) {
+                cantidad = consumidor.intentarTomar();
+            }
+            return cantidad != 0;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (cantidad == 0) {
+                cantidad = consumidor.tomar();
+            }
+            return cantidad != 0 || !consumidor.estaEjecutando();
+        }
+    }
+
+    /**
+     * Espera artificial del consumidor, sin ocupar un trabajador del pool
+     */
+    private static final class EsperaDelay implements ForkJoinPool.ManagedBlocker {
+        private final int milisegundos;
+        private boolean terminada;
+
+        EsperaDelay(int milisegundos) {
+            this.milisegundos = milisegundos;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return terminada;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            Thread.sleep(milisegundos);
+            terminada = true;
+            return true;
+        }
+    }
+}
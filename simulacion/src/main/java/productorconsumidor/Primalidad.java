@@ -0,0 +1,193 @@
+package productorconsumidor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Servicio compartido para saber si un número es primo.
+ *
+ * Hasta el límite configurado se consulta una criba de Eratóstenes precalculada
+ * que guarda solo los impares en un arreglo de bits y se construye por segmentos
+ * para aprovechar la caché. Por encima del límite se usa Miller-Rabin con las
+ * bases 2, 7 y 61, que es determinista para todo int, con una caché opcional
+ * de tamaño fijo para los valores grandes que se repiten.
+ */
+final class Primalidad {
+    public static final int LIMITE_POR_DEFECTO = 1 << 24;
+    // Entradas de la caché: al menos dos para que el desplazamiento del índice
+    // sea menor que 32, y a lo sumo 2^30 para que la potencia de dos sea un int
+    public static final int CACHE_MINIMA = 2;
+    public static final int CACHE_MAXIMA = 1 << 30;
+
+    private static final int BITS_POR_SEGMENTO = 1 << 18;
+    private static final int[] BASES_MILLER_RABIN = {2, 7, 61};
+
+    private static volatile Primalidad compartida;
+
+    private final int limite;
+    private final long[] compuestos; // Bit i encendido: 2i + 1 no es primo
+    private final AtomicLongArray cache;
+    private final int desplazamientoCache;
+
+    /**
+     * @param limite      Mayor número cubierto por la criba
+     * @param tamanoCache Entradas de la caché para valores fuera de la criba,
+     *                    redondeado a potencia de dos y limitado a
+     *                    [CACHE_MINIMA, CACHE_MAXIMA] (0 = sin caché)
+     */
+    public Primalidad(int limite, int tamanoCache) {
+        this.limite = Math.max(limite, 3);
+        this.compuestos = cribar(this.limite);
+
+        if (tamanoCache > 0) {
+            int entradas = Math.min(Math.max(tamanoCache, CACHE_MINIMA), CACHE_MAXIMA);
+            int bits = 32 - Integer.numberOfLeadingZeros(entradas - 1);
+            this.cache = new AtomicLongArray(1 << bits);
+            this.desplazamientoCache = 32 - bits;
+        } else {
+            this.cache = null;
+            this.desplazamientoCache = 0;
+        }
+    }
+
+    /**
+     * Reemplaza la instancia compartida; debe llamarse antes de crear productos
+     */
+    public static void configurar(int limite, int tamanoCache) {
+        compartida = new Primalidad(limite, tamanoCache);
+    }
+
+    /**
+     * Instancia compartida, creada con los valores por defecto si no se configuró
+     */
+    public static Primalidad compartida() {
+        Primalidad instancia = compartida;
+        if (instancia == null) {
+            synchronized (Primalidad.class) {
+                instancia = compartida;
+                if (instancia == null) {
+                    instancia = new Primalidad(LIMITE_POR_DEFECTO, 0);
+                    compartida = instancia;
+                }
+            }
+        }
+        return instancia;
+    }
+
+    public boolean esPrimo(int numero) {
+        if (numero < 2) return false;
+        if ((numero & 1) == 0) return numero == 2;
+
+        if (numero <= limite) {
+            int indice = numero >>> 1;
+            return (compuestos[indice >>> 6] & (1L << indice)) == 0;
+        }
+
+        if (cache == null) {
+            return millerRabin(numero);
+        }
+
+        // Caché de correspondencia directa: cada entrada guarda el número en los
+        // 32 bits altos, un bit de validez y el resultado
+        int posicion = (numero * 0x9E3779B9) >>> desplazamientoCache;
+        long entrada = cache.getOpaque(posicion);
+        if ((entrada & 1) != 0 && (int) (entrada >>> 32) == numero) {
+            return (entrada & 2) != 0;
+        }
+
+        boolean primo = millerRabin(numero);
+        cache.setOpaque(posicion, ((long) numero << 32) | (primo ? 3 : 1));
+        return primo;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    /**
+     * Criba segmentada sobre los impares hasta limite inclusive
+     */
+    private static long[] cribar(int limite) {
+        int totalBits = (limite >>> 1) + 1;
+        long[] compuestos = new long[(totalBits + 63) >>> 6];
+        compuestos[0] |= 1L; // El 1 no es primo
+
+        // Primos base hasta la raíz del límite, con una criba simple
+        int raiz = (int) Math.sqrt(limite);
+        boolean[] baseCompuesto = new boolean[raiz + 1];
+        int[] base = new int[raiz + 1];
+        int cantidadBase = 0;
+        for (int i = 3; i <= raiz; i += 2) {
+            if (!baseCompuesto[i]) {
+                base[cantidadBase++] = i;
+                for (int j = i * i; j <= raiz; j += 2 * i) {
+                    baseCompuesto[j] = true;
+                }
+            }
+        }
+
+        // Marcar los múltiplos de cada primo base segmento por segmento
+        for (long inicioSegmento = 0; inicioSegmento < totalBits; inicioSegmento += BITS_POR_SEGMENTO) {
+            long finSegmento = Math.min(inicioSegmento + BITS_POR_SEGMENTO, totalBits);
+            long menor = 2 * inicioSegmento + 1;
+            long mayor = 2 * finSegmento - 1;
+
+            for (int k = 0; k < cantidadBase; k++) {
+                long p = base[k];
+                long multiplo = Math.max(p * p, (menor + p - 1) / p * p);
+                if ((multiplo & 1) == 0) {
+                    multiplo += p;
+                }
+                for (; multiplo <= mayor; multiplo += 2 * p) {
+                    int indice = (int) (multiplo >>> 1);
+                    compuestos[indice >>> 6] |= 1L << indice;
+                }
+            }
+        }
+        return compuestos;
+    }
+
+    /**
+     * Miller-Rabin determinista para enteros de 32 bits impares
+     */
+    private static boolean millerRabin(int numero) {
+        long n = numero;
+        long d = n - 1;
+        int r = Long.numberOfTrailingZeros(d);
+        d >>= r;
+
+        for (int base : BASES_MILLER_RABIN) {
+            if (base % n == 0) {
+                continue;
+            }
+            long x = potenciaModular(base, d, n);
+            if (x == 1 || x == n - 1) {
+                continue;
+            }
+            boolean compuesto = true;
+            for (int i = 1; i < r; i++) {
+                x = x * x % n;
+                if (x == n - 1) {
+                    compuesto = false;
+                    break;
+                }
+            }
+            if (compuesto) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long potenciaModular(long base, long exponente, long modulo) {
+        long resultado = 1;
+        base %= modulo;
+        while (exponente > 0) {
+            if ((exponente & 1) != 0) {
+                resultado = resultado * base % modulo;
+            }
+            base = base * base % modulo;
+            exponente >>= 1;
+        }
+        return resultado;
+    }
+}
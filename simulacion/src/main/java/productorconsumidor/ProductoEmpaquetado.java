@@ -0,0 +1,88 @@
+package productorconsumidor;
+
+/**
+ * Representación primitiva de un producto en un long: los 32 bits bajos guardan
+ * el valor y los bits 32 a 34 su clasificación (par, impar, primo). Permite que
+ * los números circulen por el buffer sin crear un objeto {@link Producto} por cada uno.
+ */
+final class ProductoEmpaquetado {
+    public static final long PAR = 1L << 32;
+    public static final long IMPAR = 1L << 33;
+    public static final long PRIMO = 1L << 34;
+    public static final long CATEGORIAS = PAR | IMPAR | PRIMO;
+    // Valor leído cuya clasificación calcula después la etapa de clasificación;
+    // nunca llega al buffer
+    public static final long SIN_CLASIFICAR = 1L << 35;
+
+    /**
+     * No pertenece a ninguna categoría, así que nunca es un producto válido; el
+     * buffer cerrado lo devuelve como señal de fin
+     */
+    public static final long NINGUNO = 0L;
+
+    private ProductoEmpaquetado() {
+    }
+
+    /**
+     * Clasifica el valor y lo empaqueta junto con sus banderas
+     */
+    public static long empaquetar(int valor) {
+        long empaquetado = valor & 0xFFFFFFFFL;
+        empaquetado |= (valor & 1) == 0 ? PAR : IMPAR;
+        if (Primalidad.compartida().esPrimo(valor)) {
+            empaquetado |= PRIMO;
+        }
+        return empaquetado;
+    }
+
+    /**
+     * Empaqueta el valor clasificado o, con clasificar en false, marcado como sin clasificar
+     */
+    public static long empaquetar(int valor, boolean clasificar) {
+        return clasificar ? empaquetar(valor) : (valor & 0xFFFFFFFFL) | SIN_CLASIFICAR;
+    }
+
+    /**
+     * El producto con su clasificación; los ya clasificados quedan igual
+     */
+    public static long clasificar(long empaquetado) {
+        return (empaquetado & SIN_CLASIFICAR) != 0 ? empaquetar(valor(empaquetado)) : empaquetado;
+    }
+
+    public static int valor(long empaquetado) {
+        return (int) empaquetado;
+    }
+
+    public static boolean esPar(long empaquetado) {
+        return (empaquetado & PAR) != 0;
+    }
+
+    public static boolean esImpar(long empaquetado) {
+        return (empaquetado & IMPAR) != 0;
+    }
+
+    public static boolean esPrimo(long empaquetado) {
+        return (empaquetado & PRIMO) != 0;
+    }
+
+    /**
+     * Cantidad de categorías a las que pertenece (1 o 2)
+     */
+    public static int contarCategorias(long empaquetado) {
+        return Long.bitCount(empaquetado & CATEGORIAS);
+    }
+
+    /**
+     * Bandera de la categoría de índice 0 (par), 1 (impar) o 2 (primo)
+     */
+    public static long categoria(int indice) {
+        return PAR << indice;
+    }
+
+    /**
+     * El mismo producto con solo las banderas de categoría indicadas
+     */
+    public static long conCategorias(long empaquetado, long categorias) {
+        return (empaquetado & ~CATEGORIAS) | (categorias & CATEGORIAS);
+    }
+}
@@ -0,0 +1,2927 @@
+package productorconsumidor;
+
+import java.awt.*;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+
+/**
+ * Esta clase representa un número con su clasificación
+ */
+
+class Producto {
+    private int valor;
+    private boolean esPar;
+    private boolean esImpar;
+    private boolean esPrimo;
+
+    public Producto(int valor) {
+        this.valor = valor;
+        this.esPar = valor % 2 == 0;
+        this.esImpar = valor % 2 != 0;
+        this.esPrimo = Primalidad.compartida().esPrimo(valor); // Consulta a la criba compartida
+    }
+
+    /**
+     * Vista de un producto empaquetado; reutiliza su clasificación
+     */
+    public Producto(long empaquetado) {
+        this.valor = ProductoEmpaquetado.valor(empaquetado);
+        this.esPar = ProductoEmpaquetado.esPar(empaquetado);
+        this.esImpar = ProductoEmpaquetado.esImpar(empaquetado);
+        this.esPrimo = ProductoEmpaquetado.esPrimo(empaquetado);
+    }
+
+    /**
+     * Valor y clasificación empaquetados en un long
+     */
+    public long getEmpaquetado() {
+        long empaquetado = valor & 0xFFFFFFFFL;
+        if (esPar) empaquetado |= ProductoEmpaquetado.PAR;
+        if (esImpar) empaquetado |= ProductoEmpaquetado.IMPAR;
+        if (esPrimo) empaquetado |= ProductoEmpaquetado.PRIMO;
+        return empaquetado;
+    }
+
+    public int getValor() {
+        return valor;
+    }
+
+    public boolean esPar() {
+        return esPar;
+    }
+
+    public boolean esImpar() {
+        return esImpar;
+    }
+
+    public boolean esPrimo() {
+        return esPrimo;
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        return otro instanceof Producto && ((Producto) otro).valor == valor;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(valor);
+    }
+
+    @Override
+    public String toString() {
+        return Integer.toString(valor);
+    }
+}
+
+/**
+ * Contrato común de los buffers compartidos entre productor y consumidores.
+ *
+ * Internamente los productos circulan empaquetados en un long (ver
+ * {@link ProductoEmpaquetado}); los métodos con {@link Producto} son una vista
+ * sobre los primitivos para quien prefiera trabajar con objetos.
+ *
+ * Al cerrarlo con {@link #cerrar()} se despierta a todos los que esperan: las
+ * inserciones se rechazan y cada consumidor recibe los productos que quedan de
+ * su tipo y luego la señal de cierre, como una píldora envenenada.
+ */
+interface BufferCompartido {
+    /**
+     * Lo devuelven las operaciones de lote cuando el buffer está cerrado y ya
+     * no quedan productos del tipo pedido
+     */
+    int CERRADO = -1;
+    
+    /**
+     * Añade un producto empaquetado al buffer, esperando si no hay espacio disponible
+     *
+     * @return false si el buffer está cerrado y el producto no se añadió
+     */
+    boolean ponerEmpaquetado(long producto) throws InterruptedException;
+    
+    /**
+     * Como ponerEmpaquetado pero esperando a lo sumo el tiempo indicado
+     *
+     * @return false si venció la espera o el buffer está cerrado
+     */
+    boolean ponerEmpaquetado(long producto, long espera, TimeUnit unidad) throws InterruptedException;
+    
+    /**
+     * Obtiene un producto empaquetado según el tipo especificado ("par", "impar" o "primo")
+     *
+     * @return {@link ProductoEmpaquetado#NINGUNO} si el buffer está cerrado y no quedan productos del tipo
+     */
+    long tomarEmpaquetado(String tipo) throws InterruptedException;
+    
+    /**
+     * Añade los primeros cantidad productos empaquetados del arreglo, esperando
+     * cuando no haya espacio. Cada sección crítica inserta tantos productos como
+     * espacios libres haya.
+     *
+     * @return false si el buffer se cerró; los productos restantes se descartan
+     */
+    boolean ponerLoteEmpaquetado(long[] productos, int cantidad) throws InterruptedException;
+    
+    /**
+     * Como ponerLoteEmpaquetado pero esperando a lo sumo el tiempo indicado por
+     * el primer espacio: pone desde productos[desde] los que quepan en ese
+     * momento, hasta cantidad, sin volver a esperar
+     *
+     * @return cuántos productos puso; 0 si venció la espera o el buffer está cerrado
+     */
+    int ponerLoteEmpaquetado(long[] productos, int desde, int cantidad, long espera, TimeUnit unidad)
+            throws InterruptedException;
+    
+    /**
+     * Llena destino con hasta destino.length productos empaquetados del tipo
+     * especificado. Espera hasta que haya al menos uno y devuelve cuántos copió,
+     * o {@link #CERRADO}.
+     */
+    int tomarLoteEmpaquetado(String tipo, long[] destino) throws InterruptedException;
+    
+    /**
+     * Como tomarLoteEmpaquetado pero esperando a lo sumo el tiempo indicado;
+     * devuelve 0 si venció la espera
+     */
+    int tomarLoteEmpaquetado(String tipo, long[] destino, long espera, TimeUnit unidad) throws InterruptedException;
+    
+    /**
+     * Como tomarLoteEmpaquetado pero sin esperar: devuelve 0 si no hay productos
+     * del tipo especificado
+     */
+    int intentarTomarLoteEmpaquetado(String tipo, long[] destino);
+    
+    /**
+     * Cierra el buffer y despierta a todos los hilos que esperan en él. Se
+     * vuelve a abrir con {@link #limpiar()}.
+     */
+    void cerrar();
+    
+    boolean estaCerrado();
+    
+    /**
+     * Obtiene una copia de a lo sumo maximo elementos actuales del buffer (para
+     * visualización); el total se obtiene con {@link #getTamano()}
+     */
+    List<Producto> getElementos(int maximo);
+    
+    /**
+     * Devuelve el tamaño actual del buffer
+     */
+    int getTamano();
+    
+    /**
+     * Capacidad efectiva actual; puede cambiar con {@link #ajustarCapacidad}
+     */
+    int getCapacidad();
+    
+    /**
+     * Capacidad con que se creó el buffer, tope de {@link #ajustarCapacidad}
+     */
+    int getCapacidadMaxima();
+    
+    /**
+     * Cambia la capacidad efectiva, acotada entre 1 y la capacidad máxima. Al
+     * reducirla solo se retiran ranuras libres, así que puede quedar por encima
+     * de lo pedido; no hace nada con el buffer cerrado.
+     *
+     * @return la capacidad resultante
+     */
+    int ajustarCapacidad(int capacidad);
+    
+    /**
+     * Productos del tipo especificado que esperan ser tomados
+     */
+    int getPendientes(String tipo);
+    
+    /**
+     * Activa la medición de esperas y tiempos en el buffer. Debe llamarse antes
+     * de iniciar los hilos; sin ella el buffer no mide nada.
+     */
+    void instrumentar(MetricasBuffer metricas);
+    
+    /**
+     * Descarta el producto más antiguo del buffer para todas sus categorías
+     * pendientes y libera su ranura. Lo usan las políticas de desborde.
+     *
+     * @return el producto descartado, con solo las categorías que lo perdieron,
+     *         o {@link ProductoEmpaquetado#NINGUNO} si el buffer está vacío
+     */
+    long descartarMasAntiguo();
+    
+    /**
+     * Descarta el producto más antiguo pendiente para la categoría; su ranura se
+     * libera si ninguna otra categoría lo tiene pendiente
+     *
+     * @return el producto descartado, o {@link ProductoEmpaquetado#NINGUNO} si no hay productos del tipo
+     */
+    long descartarMasAntiguo(String tipo);
+    
+    /**
+     * Productos que esperan ser tomados, del más antiguo al más nuevo, cada uno
+     * solo con las categorías que aún no lo tomaron. Es exacta solo con
+     * productores y consumidores detenidos, como en un punto de control.
+     */
+    long[] copiarPendientes();
+    
+    /**
+     * Entregas descartadas por la política de desborde, por categoría; vacío si
+     * el buffer nunca descarta
+     */
+    default Map<String, Long> getDescartados() {
+        return Collections.emptyMap();
+    }
+    
+    /**
+     * Limpia el buffer (usado para reiniciar) y lo vuelve a abrir si estaba cerrado
+     */
+    void limpiar();
+    
+    /**
+     * Añade un producto al buffer, esperando si no hay espacio disponible
+     *
+     * @return false si el buffer está cerrado
+     */
+    default boolean poner(Producto producto) throws InterruptedException {
+        return ponerEmpaquetado(producto.getEmpaquetado());
+    }
+    
+    /**
+     * Obtiene un producto del buffer según el tipo especificado ("par", "impar" o "primo")
+     *
+     * @return null si el buffer está cerrado y no quedan productos del tipo
+     */
+    default Producto tomar(String tipo) throws InterruptedException {
+        long producto = tomarEmpaquetado(tipo);
+        return producto == ProductoEmpaquetado.NINGUNO ? null : new Producto(producto);
+    }
+    
+    /**
+     * Añade un lote de productos al buffer, esperando cuando no haya espacio
+     *
+     * @return false si el buffer se cerró antes de añadirlos todos
+     */
+    default boolean ponerLote(List<Producto> productos) throws InterruptedException {
+        long[] empaquetados = new long[productos.size()];
+        for (int i = 0; i < empaquetados.length; i++) {
+            empaquetados[i] = productos.get(i).getEmpaquetado();
+        }
+        return ponerLoteEmpaquetado(empaquetados, empaquetados.length);
+    }
+    
+    /**
+     * Obtiene hasta maxItems productos del tipo especificado. Espera hasta que
+     * haya al menos uno y devuelve los que estén disponibles en ese momento, o
+     * una lista vacía si el buffer está cerrado.
+     */
+    default List<Producto> tomarLote(String tipo, int maxItems) throws InterruptedException {
+        long[] empaquetados = new long[maxItems];
+        int cantidad = Math.max(0, tomarLoteEmpaquetado(tipo, empaquetados));
+        List<Producto> lote = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            lote.add(new Producto(empaquetados[i]));
+        }
+        return lote;
+    }
+}
+
+/**
+ * Buffer compartido con ranuras indexadas por categoría y semáforos para sincronización.
+ *
+ * Al poner un producto se guarda en una ranura libre y su índice se encola en la
+ * cola de cada categoría a la que pertenece. Cada ranura lleva la cuenta de las
+ * categorías que aún no la han consumido, de modo que un impar primo llega tanto
+ * al consumidor de impares como al de primos y el espacio se libera cuando ambos
+ * lo han tomado.
+ */
+class BufferSemaforos implements BufferCompartido {
+    private static final int PAR = 0;
+    private static final int IMPAR = 1;
+    private static final int PRIMO = 2;
+    
+    // Se reservan ranuras para la capacidad máxima; la efectiva es la cantidad
+    // de permisos de empty más las ranuras ocupadas o en vías de ocuparse
+    private final int capacidadMaxima;
+    private volatile int capacidad;
+    
+    // Ranuras del buffer con los productos empaquetados, protegidas por el mutex
+    private final long[] ranuras;
+    private final int[] pendientes;      // Categorías que aún no han tomado cada ranura (0 = libre)
+    private final long[] orden;          // Orden de inserción de cada ranura, para descartar la más antigua
+    private long siguienteOrden;
+    private final int[] libres;          // Pila de ranuras libres
+    private volatile int cantidadLibres; // Se modifica con el mutex; getTamano la lee sin él
+    private final ColaRanuras[] colas;   // Índices de ranuras por categoría
+    
+    // Semáforos para control de concurrencia
+    private final Semaphore mutex;     // Controla el acceso a la sección crítica
+    private final Semaphore empty;     // Controla espacios disponibles en el buffer
+    
+    // Semáforos para los tipos específicos de consumidores
+    private final Semaphore semPares;  // Para números pares
+    private final Semaphore semImpares; // Para números impares
+    private final Semaphore semPrimos; // Para números primos
+    
+    // Instrumentación opcional (null = desactivada) e instante de inserción de cada ranura
+    private MetricasBuffer metricas;
+    private long[] marcas;
+    
+    // Nombre del motor en los eventos de JFR
+    private static final String MOTOR = "semaforos";
+    
+    // Al cerrar se liberan tantos permisos que nadie vuelve a bloquearse
+    private static final int PERMISOS_CIERRE = Integer.MAX_VALUE / 4;
+    private volatile boolean cerrado = false;
+    
+    public BufferSemaforos(int capacidad) {
+        this(capacidad, capacidad);
+    }
+    
+    /**
+     * Buffer que empieza con la capacidad indicada y puede crecer con
+     * {@link #ajustarCapacidad} hasta capacidadMaxima
+     */
+    public BufferSemaforos(int capacidad, int capacidadMaxima) {
+        this.capacidadMaxima = capacidadMaxima;
+        this.capacidad = Math.max(1, Math.min(capacidad, capacidadMaxima));
+        this.ranuras = new long[capacidadMaxima];
+        this.pendientes = new int[capacidadMaxima];
+        this.orden = new long[capacidadMaxima];
+        this.libres = new int[capacidadMaxima];
+        this.colas = new ColaRanuras[] {
+            new ColaRanuras(capacidadMaxima),
+            new ColaRanuras(capacidadMaxima),
+            new ColaRanuras(capacidadMaxima)
+        };
+        reiniciarRanuras();
+        
+        // Inicializar semáforos
+        this.mutex = new Semaphore(1, true); // Semáforo binario (mutex)
+        this.empty = new Semaphore(this.capacidad, true); // Inicialmente, todos los espacios están vacíos
+        
+        // Inicializar semáforos para tipos específicos
+        this.semPares = new Semaphore(0, true);
+        this.semImpares = new Semaphore(0, true);
+        this.semPrimos = new Semaphore(0, true);
+    }
+    
+    @Override
+    public boolean ponerEmpaquetado(long producto) throws InterruptedException {
+        long inicio = marcaTiempo();
+        adquirir(empty, "espacio");  // Esperar si no hay espacio disponible
+        return insertarConPermiso(producto, inicio);
+    }
+    
+    @Override
+    public boolean ponerEmpaquetado(long producto, long espera, TimeUnit unidad) throws InterruptedException {
+        long inicio = marcaTiempo();
+        if (!adquirir(empty, espera, unidad, "espacio")) {
+            return false;
+        }
+        return insertarConPermiso(producto, inicio);
+    }
+    
+    /**
+     * Inserta el producto con un permiso de empty ya tomado y avisa a sus categorías
+     */
+    private boolean insertarConPermiso(long producto, long inicio) {
+        MetricasBuffer m = metricas;
+        long ahora = m != null ? m.registrarEsperaEspacio(inicio) : 0;
+        entrarConPermisos();  // Entrar en la sección crítica
+        if (m != null) {
+            ahora = m.registrarEsperaMutex(ahora);
+        }
+        
+        boolean abierto = !cerrado;
+        try {
+            if (abierto) {
+                insertar(producto, ahora);
+            }
+        } finally {
+            mutex.release();  // Salir de la sección crítica
+        }
+        if (!abierto) {
+            empty.release(); // Devolver el espacio reservado
+            return false;
+        }
+        if (m != null) {
+            m.registrarPuestos(1);
+        }
+        
+        // Señalizar a los consumidores específicos según el tipo de número
+        if (ProductoEmpaquetado.esPar(producto)) {
+            semPares.release();
+        }
+        if (ProductoEmpaquetado.esImpar(producto)) {
+            semImpares.release();
+        }
+        if (ProductoEmpaquetado.esPrimo(producto)) {
+            semPrimos.release();
+        }
+        return true;
+    }
+    
+    @Override
+    public boolean ponerLoteEmpaquetado(long[] productos, int cantidad) throws InterruptedException {
+        int indice = 0;
+        while (indice < cantidad) {
+            // Esperar al menos un espacio y reservar sin bloquear los demás que haya libres
+            long inicio = marcaTiempo();
+            adquirir(empty, "espacio");
+            int reservados = 1 + reservarDisponibles(empty, cantidad - indice - 1);
+            if (!insertarReservados(productos, indice, reservados, inicio)) {
+                return false;
+            }
+            indice += reservados;
+        }
+        return true;
+    }
+    
+    @Override
+    public int ponerLoteEmpaquetado(long[] productos, int desde, int cantidad, long espera, TimeUnit unidad)
+            throws InterruptedException {
+        long inicio = marcaTiempo();
+        if (cantidad <= 0 || !adquirir(empty, espera, unidad, "espacio")) {
+            return 0;
+        }
+        int reservados = 1 + reservarDisponibles(empty, cantidad - 1);
+        return insertarReservados(productos, desde, reservados, inicio) ? reservados : 0;
+    }
+    
+    /**
+     * Inserta un tramo en una sola sección crítica con sus permisos de empty ya
+     * tomados y avisa a las categorías
+     *
+     * @return false si el buffer está cerrado; los permisos se devuelven
+     */
+    private boolean insertarReservados(long[] productos, int desde, int reservados, long inicio) {
+        int pares = 0;
+        int impares = 0;
+        int primos = 0;
+        
+        MetricasBuffer m = metricas;
+        long ahora = m != null ? m.registrarEsperaEspacio(inicio) : 0;
+        entrarConPermisos();  // Una sola sección crítica para todo el tramo
+        if (m != null) {
+            ahora = m.registrarEsperaMutex(ahora);
+        }
+        boolean abierto = !cerrado;
+        try {
+            for (int i = desde; abierto && i < desde + reservados; i++) {
+                long producto = productos[i];
+                insertar(producto, ahora);
+                if (ProductoEmpaquetado.esPar(producto)) pares++;
+                if (ProductoEmpaquetado.esImpar(producto)) impares++;
+                if (ProductoEmpaquetado.esPrimo(producto)) primos++;
+            }
+        } finally {
+            mutex.release();
+        }
+        if (!abierto) {
+            empty.release(reservados); // Devolver los espacios reservados
+            return false;
+        }
+        if (m != null) {
+            m.registrarPuestos(reservados);
+        }
+        
+        if (pares > 0) semPares.release(pares);
+        if (impares > 0) semImpares.release(impares);
+        if (primos > 0) semPrimos.release(primos);
+        return true;
+    }
+    
+    @Override
+    public long tomarEmpaquetado(String tipo) throws InterruptedException {
+        long producto = ProductoEmpaquetado.NINGUNO;
+        boolean liberada = false;
+        int categoria = indiceCategoria(tipo);
+        
+        while (producto == ProductoEmpaquetado.NINGUNO) {
+            // Esperar por el tipo específico de número; cada permiso corresponde
+            // a una ranura encolada para esta categoría, salvo tras el cierre
+            long ahora = marcaTiempo();
+            adquirir(semaforoCategoria(categoria), MetricasBuffer.TIPOS[categoria]);
+            ahora = entrarTrasEspera(categoria, ahora);
+            
+            try {
+                if (colas[categoria].estaVacia()) {
+                    if (cerrado) {
+                        return ProductoEmpaquetado.NINGUNO; // Cerrado y sin productos del tipo
+                    }
+                    continue; // Una política de desborde descartó el producto del permiso
+                }
+                int ranura = colas[categoria].desencolar();
+                producto = ranuras[ranura];
+                registrarTomado(categoria, ranura, ahora);
+                liberada = liberarSiUltima(ranura);
+            } finally {
+                mutex.release(); // Salir de la sección crítica
+            }
+        }
+        
+        if (liberada) {
+            empty.release(); // Señalizar que hay un espacio más en el buffer
+        }
+        
+        return producto;
+    }
+    
+    @Override
+    public int tomarLoteEmpaquetado(String tipo, long[] destino) throws InterruptedException {
+        int categoria = indiceCategoria(tipo);
+        Semaphore semaforo = semaforoCategoria(categoria);
+        
+        int cantidad;
+        do {
+            // Esperar al menos un producto y reservar sin bloquear los demás disponibles
+            long ahora = marcaTiempo();
+            adquirir(semaforo, MetricasBuffer.TIPOS[categoria]);
+            int reservados = 1 + reservarDisponibles(semaforo, destino.length - 1);
+            
+            ahora = entrarTrasEspera(categoria, ahora);
+            cantidad = extraer(categoria, destino, reservados, ahora);
+        } while (cantidad == 0); // Una política de desborde descartó lo reservado
+        return cantidad;
+    }
+    
+    @Override
+    public int tomarLoteEmpaquetado(String tipo, long[] destino, long espera, TimeUnit unidad)
+            throws InterruptedException {
+        int categoria = indiceCategoria(tipo);
+        Semaphore semaforo = semaforoCategoria(categoria);
+        
+        long ahora = marcaTiempo();
+        if (!adquirir(semaforo, espera, unidad, MetricasBuffer.TIPOS[categoria])) {
+            return 0;
+        }
+        int reservados = 1 + reservarDisponibles(semaforo, destino.length - 1);
+        
+        ahora = entrarTrasEspera(categoria, ahora);
+        return extraer(categoria, destino, reservados, ahora);
+    }
+    
+    @Override
+    public int intentarTomarLoteEmpaquetado(String tipo, long[] destino) {
+        int categoria = indiceCategoria(tipo);
+        int reservados = reservarDisponibles(semaforoCategoria(categoria), destino.length);
+        if (reservados == 0) {
+            return 0;
+        }
+        
+        MetricasBuffer m = metricas;
+        long ahora = marcaTiempo();
+        entrarConPermisos();
+        if (m != null) {
+            ahora = m.registrarEsperaMutex(ahora);
+        }
+        return extraer(categoria, destino, reservados, ahora);
+    }
+    
+    /**
+     * Saca hasta reservados ranuras de la cola de la categoría hacia destino y
+     * libera el mutex. Se llama con el mutex y los permisos de la categoría ya
+     * tomados; puede haber más permisos que ranuras tras el cierre o si una
+     * política de desborde descartó productos ya reservados.
+     *
+     * @return cantidad copiada; si la cola está vacía, CERRADO o 0 si sigue abierto
+     */
+    private int extraer(int categoria, long[] destino, int reservados, long ahora) {
+        int liberadas = 0;
+        try {
+            reservados = Math.min(reservados, colas[categoria].getTamano());
+            if (reservados == 0) {
+                return cerrado ? CERRADO : 0;
+            }
+            for (int i = 0; i < reservados; i++) {
+                int ranura = colas[categoria].desencolar();
+                destino[i] = ranuras[ranura];
+                registrarTomado(categoria, ranura, ahora);
+                if (liberarSiUltima(ranura)) {
+                    liberadas++;
+                }
+            }
+        } finally {
+            mutex.release();
+        }
+        
+        if (liberadas > 0) {
+            empty.release(liberadas);
+        }
+        return reservados;
+    }
+    
+    /**
+     * Marca el buffer como cerrado y libera permisos de sobra en todos los
+     * semáforos para que ningún productor ni consumidor siga bloqueado
+     */
+    @Override
+    public void cerrar() {
+        mutex.acquireUninterruptibly();
+        boolean yaCerrado = cerrado;
+        cerrado = true;
+        mutex.release();
+        if (yaCerrado) {
+            return;
+        }
+        
+        empty.release(PERMISOS_CIERRE);
+        semPares.release(PERMISOS_CIERRE);
+        semImpares.release(PERMISOS_CIERRE);
+        semPrimos.release(PERMISOS_CIERRE);
+    }
+    
+    @Override
+    public boolean estaCerrado() {
+        return cerrado;
+    }
+    
+    /**
+     * Recorre las colas de categoría desde el frente, del más antiguo al más
+     * nuevo, y se detiene al juntar maximo productos. No toma el mutex para no
+     * competir con productores y consumidores, así que la vista es aproximada.
+     */
+    @Override
+    public List<Producto> getElementos(int maximo) {
+        List<Producto> copia = new ArrayList<>();
+        int[] posiciones = new int[colas.length];
+        while (copia.size() < maximo) {
+            // El más antiguo entre los siguientes de cada cola; una ranura
+            // pendiente para varias categorías se muestra una vez
+            int ranura = -1;
+            for (int categoria = 0; categoria < colas.length; categoria++) {
+                ColaRanuras cola = colas[categoria];
+                if (posiciones[categoria] < cola.getTamano()) {
+                    int candidata = cola.get(posiciones[categoria]);
+                    if (ranura < 0 || orden[candidata] < orden[ranura]) {
+                        ranura = candidata;
+                    }
+                }
+            }
+            if (ranura < 0) {
+                break;
+            }
+            for (int categoria = 0; categoria < colas.length; categoria++) {
+                ColaRanuras cola = colas[categoria];
+                if (posiciones[categoria] < cola.getTamano() && cola.get(posiciones[categoria]) == ranura) {
+                    posiciones[categoria]++;
+                }
+            }
+            copia.add(new Producto(ranuras[ranura]));
+        }
+        return copia;
+    }
+    
+    @Override
+    public int getTamano() {
+        return capacidadMaxima - cantidadLibres;
+    }
+    
+    @Override
+    public int getCapacidad() {
+        return capacidad;
+    }
+    
+    @Override
+    public int getCapacidadMaxima() {
+        return capacidadMaxima;
+    }
+    
+    /**
+     * Crecer libera permisos de empty; reducir toma los que estén disponibles,
+     * sin esperar a que los consumidores vacíen ranuras
+     */
+    @Override
+    public int ajustarCapacidad(int nueva) {
+        nueva = Math.max(1, Math.min(nueva, capacidadMaxima));
+        mutex.acquireUninterruptibly();
+        try {
+            if (cerrado) {
+                return capacidad;
+            }
+            if (nueva > capacidad) {
+                empty.release(nueva - capacidad);
+                capacidad = nueva;
+            } else if (nueva < capacidad) {
+                capacidad -= reservarDisponibles(empty, capacidad - nueva);
+            }
+            return capacidad;
+        } finally {
+            mutex.release();
+        }
+    }
+    
+    @Override
+    public int getPendientes(String tipo) {
+        int categoria = indiceCategoria(tipo);
+        try {
+            mutex.acquire();
+            int tamano = colas[categoria].getTamano();
+            mutex.release();
+            return tamano;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+    
+    @Override
+    public void instrumentar(MetricasBuffer metricas) {
+        this.marcas = new long[capacidadMaxima];
+        this.metricas = metricas;
+    }
+    
+    @Override
+    public long descartarMasAntiguo() {
+        long producto;
+        mutex.acquireUninterruptibly();
+        try {
+            // El producto más antiguo está al frente de cada cola en la que sigue pendiente
+            int ranura = -1;
+            for (ColaRanuras cola : colas) {
+                if (!cola.estaVacia() && (ranura < 0 || orden[cola.frente()] < orden[ranura])) {
+                    ranura = cola.frente();
+                }
+            }
+            if (ranura < 0) {
+                return ProductoEmpaquetado.NINGUNO;
+            }
+            
+            long descartadas = 0;
+            for (int categoria = 0; categoria < colas.length; categoria++) {
+                if (!colas[categoria].estaVacia() && colas[categoria].frente() == ranura) {
+                    colas[categoria].desencolar();
+                    descartadas |= ProductoEmpaquetado.categoria(categoria);
+                    liberarSiUltima(ranura);
+                    // Si un consumidor ya tiene el permiso, encontrará la cola más corta
+                    semaforoCategoria(categoria).tryAcquire();
+                }
+            }
+            // Las categorías que ya lo tomaron no cuentan como descartes
+            producto = ProductoEmpaquetado.conCategorias(ranuras[ranura], descartadas);
+        } finally {
+            mutex.release();
+        }
+        empty.release();
+        return producto;
+    }
+    
+    @Override
+    public long descartarMasAntiguo(String tipo) {
+        int categoria = indiceCategoria(tipo);
+        if (!semaforoCategoria(categoria).tryAcquire()) {
+            return ProductoEmpaquetado.NINGUNO;
+        }
+        
+        long producto = ProductoEmpaquetado.NINGUNO;
+        boolean liberada = false;
+        mutex.acquireUninterruptibly();
+        try {
+            if (!colas[categoria].estaVacia()) {
+                int ranura = colas[categoria].desencolar();
+                producto = ranuras[ranura];
+                liberada = liberarSiUltima(ranura);
+            }
+        } finally {
+            mutex.release();
+        }
+        if (liberada) {
+            empty.release();
+        }
+        return producto;
+    }
+    
+    @Override
+    public long[] copiarPendientes() {
+        mutex.acquireUninterruptibly();
+        try {
+            // Categorías que aún tienen pendiente cada ranura, según sus colas
+            long[] categoriasPendientes = new long[capacidadMaxima];
+            List<Integer> ocupadas = new ArrayList<>();
+            for (int categoria = 0; categoria < colas.length; categoria++) {
+                ColaRanuras cola = colas[categoria];
+                for (int i = 0; i < cola.getTamano(); i++) {
+                    int ranura = cola.get(i);
+                    if (categoriasPendientes[ranura] == 0) {
+                        ocupadas.add(ranura);
+                    }
+                    categoriasPendientes[ranura] |= ProductoEmpaquetado.categoria(categoria);
+                }
+            }
+            
+            ocupadas.sort(Comparator.comparingLong(ranura -> orden[ranura]));
+            long[] copia = new long[ocupadas.size()];
+            for (int i = 0; i < copia.length; i++) {
+                int ranura = ocupadas.get(i);
+                copia[i] = ProductoEmpaquetado.conCategorias(ranuras[ranura], categoriasPendientes[ranura]);
+            }
+            return copia;
+        } finally {
+            mutex.release();
+        }
+    }
+    
+    @Override
+    public void limpiar() {
+        try {
+            mutex.acquire();
+            
+            // Vaciar el buffer
+            reiniciarRanuras();
+            
+            // Reiniciar los semáforos
+            // Drenar los permisos existentes
+            drainPermits(semPares);
+            drainPermits(semImpares);
+            drainPermits(semPrimos);
+            
+            // Reiniciar el semáforo empty
+            drainPermits(empty);
+            empty.release(capacidad);
+            
+            cerrado = false;
+            mutex.release();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Guarda el producto en una ranura libre y la indexa en la cola de cada
+     * categoría a la que pertenece. Se llama dentro del mutex con un permiso
+     * de empty ya tomado.
+     */
+    private void insertar(long producto, long ahora) {
+        int ranura = libres[--cantidadLibres];
+        ranuras[ranura] = producto;
+        orden[ranura] = siguienteOrden++;
+        if (metricas != null) {
+            marcas[ranura] = ahora;
+        }
+        pendientes[ranura] = ProductoEmpaquetado.contarCategorias(producto);
+        
+        if (ProductoEmpaquetado.esPar(producto)) {
+            colas[PAR].encolar(ranura);
+        }
+        if (ProductoEmpaquetado.esImpar(producto)) {
+            colas[IMPAR].encolar(ranura);
+        }
+        if (ProductoEmpaquetado.esPrimo(producto)) {
+            colas[PRIMO].encolar(ranura);
+        }
+    }
+    
+    /**
+     * Descuenta una categoría de la ranura; la última en tomarla la libera.
+     * Se llama dentro del mutex.
+     */
+    private boolean liberarSiUltima(int ranura) {
+        if (--pendientes[ranura] == 0) {
+            libres[cantidadLibres++] = ranura;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Marca todas las ranuras como libres y vacía las colas de categoría
+     */
+    private void reiniciarRanuras() {
+        for (int i = 0; i < capacidadMaxima; i++) {
+            ranuras[i] = 0;
+            pendientes[i] = 0;
+            libres[i] = capacidadMaxima - 1 - i;
+        }
+        cantidadLibres = capacidadMaxima;
+        for (ColaRanuras cola : colas) {
+            cola.vaciar();
+        }
+    }
+    
+    /**
+     * Instante actual si hay métricas, para medir la espera que empieza
+     */
+    private long marcaTiempo() {
+        return metricas != null ? System.nanoTime() : 0;
+    }
+    
+    /**
+     * Registra la espera por la categoría que empezó en inicio y toma el mutex,
+     * registrando también esa espera. Devuelve el instante de entrada.
+     */
+    private long entrarTrasEspera(int categoria, long inicio) {
+        MetricasBuffer m = metricas;
+        if (m == null) {
+            entrarConPermisos();
+            return 0;
+        }
+        long ahora = m.registrarEsperaCategoria(categoria, inicio);
+        entrarConPermisos();
+        return m.registrarEsperaMutex(ahora);
+    }
+    
+    /**
+     * Entra al mutex con permisos de empty o de una categoría ya tomados. No se
+     * interrumpe, porque perdería los permisos reservados; la espera es corta,
+     * ya que nadie se bloquea mientras retiene el mutex. Una interrupción queda
+     * marcada en el hilo para la próxima espera.
+     */
+    private void entrarConPermisos() {
+        EventosJfr.Espera evento = new EventosJfr.Espera();
+        evento.begin();
+        mutex.acquireUninterruptibly();
+        registrarEspera(evento, "mutex");
+    }
+    
+    /**
+     * Toma un permiso del semáforo; si la espera supera el umbral del evento
+     * de JFR se registra con el nombre del recurso
+     */
+    private static void adquirir(Semaphore semaforo, String recurso) throws InterruptedException {
+        EventosJfr.Espera evento = new EventosJfr.Espera();
+        evento.begin();
+        semaforo.acquire();
+        registrarEspera(evento, recurso);
+    }
+    
+    /**
+     * Como adquirir pero esperando a lo sumo el tiempo indicado
+     */
+    private static boolean adquirir(Semaphore semaforo, long espera, TimeUnit unidad, String recurso)
+            throws InterruptedException {
+        EventosJfr.Espera evento = new EventosJfr.Espera();
+        evento.begin();
+        boolean adquirido = semaforo.tryAcquire(espera, unidad);
+        registrarEspera(evento, recurso);
+        return adquirido;
+    }
+    
+    private static void registrarEspera(EventosJfr.Espera evento, String recurso) {
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.recurso = recurso;
+            evento.motor = MOTOR;
+            evento.commit();
+        }
+    }
+    
+    /**
+     * Registra cuánto estuvo la ranura en el buffer. Se llama dentro del mutex.
+     */
+    private void registrarTomado(int categoria, int ranura, long ahora) {
+        if (metricas != null) {
+            metricas.registrarTomado(categoria, marcas[ranura], ahora);
+        }
+    }
+    
+    private Semaphore semaforoCategoria(int categoria) {
+        switch (categoria) {
+            case PAR:
+                return semPares;
+            case IMPAR:
+                return semImpares;
+            default:
+                return semPrimos;
+        }
+    }
+    
+    private static int indiceCategoria(String tipo) {
+        switch (tipo) {
+            case "par":
+                return PAR;
+            case "impar":
+                return IMPAR;
+            case "primo":
+                return PRIMO;
+            default:
+                throw new IllegalArgumentException("Tipo de consumidor desconocido: " + tipo);
+        }
+    }
+    
+    /**
+     * Toma sin bloquear hasta maximo permisos adicionales del semáforo y
+     * devuelve cuántos consiguió
+     */
+    private static int reservarDisponibles(Semaphore semaforo, int maximo) {
+        int reservados = 0;
+        while (reservados < maximo) {
+            int disponibles = Math.min(maximo - reservados, semaforo.availablePermits());
+            if (disponibles <= 0 || !semaforo.tryAcquire(disponibles)) {
+                break;
+            }
+            reservados += disponibles;
+        }
+        return reservados;
+    }
+    
+    /**
+     * Método auxiliar para drenar todos los permisos de un semáforo
+     */
+    private void drainPermits(Semaphore semaphore) {
+        semaphore.drainPermits();
+    }
+    
+    /**
+     * Cola circular de índices de ranura; se usa siempre dentro del mutex
+     */
+    private static final class ColaRanuras {
+        private final int[] indices;
+        private int cabeza;
+        private int tamano;
+        
+        ColaRanuras(int capacidad) {
+            this.indices = new int[capacidad];
+        }
+        
+        void encolar(int ranura) {
+            indices[(cabeza + tamano) % indices.length] = ranura;
+            tamano++;
+        }
+        
+        /**
+         * Ranura al frente de la cola, sin sacarla
+         */
+        int frente() {
+            return indices[cabeza];
+        }
+        
+        /**
+         * Ranura en la posición i contando desde el frente
+         */
+        int get(int i) {
+            return indices[(cabeza + i) % indices.length];
+        }
+        
+        int desencolar() {
+            int ranura = indices[cabeza];
+            cabeza = (cabeza + 1) % indices.length;
+            tamano--;
+            return ranura;
+        }
+        
+        int getTamano() {
+            return tamano;
+        }
+        
+        boolean estaVacia() {
+            return tamano == 0;
+        }
+        
+        void vaciar() {
+            cabeza = 0;
+            tamano = 0;
+        }
+    }
+}
+
+/**
+ * Clase que representa un productor que lee números de un archivo
+ */
+class Productor implements Runnable {
+    private final BufferCompartido buffer;
+    private final LectorProductos.Fuente fuente;
+    private final String archivo;        // null si la fuente no es un archivo
+    private final ObservadorSimulacion observador;
+    private final long[] lote;           // Productos empaquetados pendientes de entregar
+    private int cantidadLote = 0;
+    private EventosJfr.Lote eventoLote;  // Evento de JFR del lote en formación
+    private final long inicio;
+    private final long fin;
+    private final AtomicInteger productoresActivos;
+    private volatile boolean ejecutando = true;
+    private PuntoControl puntoControl;   // null sin puntos de control
+    private boolean enPuntoControl;      // Hay un lote en curso anunciado al punto de control
+    private final AtomicLong posicionEntregada; // Byte siguiente al último número entregado
+    private long[] pendientes;           // Productos a entregar antes de leer, al reanudar
+    private ClasificacionParalela clasificacion; // null si el productor clasifica lo que lee
+
+    public Productor(BufferCompartido buffer, String archivo, ObservadorSimulacion observador) {
+        this(buffer, archivo, observador, 1);
+    }
+
+    /**
+     * Con tamanoLote mayor que 1 los productos se acumulan y se entregan al
+     * buffer con ponerLoteEmpaquetado
+     */
+    public Productor(BufferCompartido buffer, String archivo, ObservadorSimulacion observador, int tamanoLote) {
+        this(buffer, archivo, observador, tamanoLote, 0, Long.MAX_VALUE, new AtomicInteger(1));
+    }
+
+    /**
+     * Productor que lee solo el tramo [inicio, fin) del archivo. Todos los
+     * productores de un mismo archivo comparten productoresActivos; el último
+     * en terminar avisa que se terminó de leer el archivo.
+     */
+    public Productor(BufferCompartido buffer, String archivo, ObservadorSimulacion observador, int tamanoLote,
+                     long inicio, long fin, AtomicInteger productoresActivos) {
+        this(buffer, () -> LectorProductos.abrir(Paths.get(archivo), inicio, fin), archivo, observador, tamanoLote,
+            inicio, fin, productoresActivos);
+    }
+
+    /**
+     * Productor que lee de otra fuente: la entrada estándar, una tubería, un
+     * archivo que crece o una fuente sintética
+     *
+     * @param inicio posición de la fuente desde la que se lee, para los puntos de control
+     */
+    public Productor(BufferCompartido buffer, LectorProductos.Fuente fuente, ObservadorSimulacion observador,
+                     int tamanoLote, long inicio, AtomicInteger productoresActivos) {
+        this(buffer, fuente, null, observador, tamanoLote, inicio, Long.MAX_VALUE, productoresActivos);
+    }
+
+    private Productor(BufferCompartido buffer, LectorProductos.Fuente fuente, String archivo,
+                      ObservadorSimulacion observador, int tamanoLote, long inicio, long fin,
+                      AtomicInteger productoresActivos) {
+        this.buffer = buffer;
+        this.fuente = fuente;
+        this.archivo = archivo;
+        this.observador = observador;
+        this.lote = new long[tamanoLote];
+        this.inicio = inicio;
+        this.fin = fin;
+        this.productoresActivos = productoresActivos;
+        this.posicionEntregada = new AtomicLong(inicio);
+    }
+
+    /**
+     * Anuncia cada lote al punto de control, que guarda la posición del último entregado
+     */
+    public void setPuntoControl(PuntoControl puntoControl) {
+        this.puntoControl = puntoControl;
+    }
+
+    /**
+     * Envía los lotes sin clasificar a las etapas de clasificación y entrega
+     * en lugar de ponerlos en el buffer
+     */
+    public void setClasificacion(ClasificacionParalela clasificacion) {
+        this.clasificacion = clasificacion;
+    }
+
+    /**
+     * Productos que estaban en el buffer en el punto de control del que se
+     * reanuda; se entregan antes de seguir leyendo
+     */
+    public void setPendientes(long[] pendientes) {
+        this.pendientes = pendientes;
+    }
+
+    @Override
+    public void run() {
+        // Verificar que el archivo existe antes de intentar leerlo
+        if (archivo != null) {
+            File file = new File(archivo);
+            if (!file.exists() || !file.canRead()) {
+                String mensaje = "Error: No se puede leer el archivo " + archivo;
+                System.err.println(mensaje);
+                observador.actualizar(mensaje);
+                observador.actualizar("Por favor, ejecute primero GeneradorNumeros.java");
+                return;
+            }
+        }
+        
+        // Un archivo se mapea en memoria y los números se leen directamente de
+        // los bytes, en texto o en binario según su firma
+        try (LectorProductos lector = fuente.abrir()) {
+            lector.setClasificar(clasificacion == null);
+            entregarPendientes();
+            while (ejecutando) {
+                // Verificar si la animación está pausada
+                if (observador.estaPausado()) continue;
+                
+                // Leer un lote de productos empaquetados sin crear objetos
+                eventoLote = new EventosJfr.Lote();
+                eventoLote.begin();
+                cantidadLote = lector.leer(lote, lote.length);
+                if (cantidadLote == 0) {
+                    break; // Fin del tramo
+                }
+                // La lectura queda fuera del punto de control, porque en un flujo
+                // puede esperar datos sin límite: un lote leído y aún no entregado
+                // no está en el buffer ni en la posición entregada, y se vuelve a
+                // leer al reanudar
+                entrarPuntoControl();
+                if (clasificacion != null) {
+                    enviarLote(lector.getPosicion());
+                } else {
+                    entregarLote(lector.getPosicion());
+                }
+            }
+            
+            if (ejecutando && productoresActivos.decrementAndGet() == 0) {
+                observador.actualizar("Productor ha terminado de leer el archivo");
+            }
+        } catch (ClosedByInterruptException | InterruptedIOException e) {
+            Thread.currentThread().interrupt(); // Detenido mientras leía la fuente
+        } catch (IOException e) {
+            System.err.println("Error al leer el archivo: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            salirPuntoControl();
+            System.out.println("Productor terminó");
+        }
+    }
+    
+    private void entregarPendientes() throws InterruptedException {
+        if (pendientes == null || pendientes.length == 0) {
+            return;
+        }
+        entrarPuntoControl();
+        if (!buffer.ponerLoteEmpaquetado(pendientes, pendientes.length)) {
+            ejecutando = false;
+            return;
+        }
+        observador.productosProducidos(pendientes, pendientes.length, buffer);
+        pendientes = null;
+        salirPuntoControl();
+    }
+    
+    private void entrarPuntoControl() throws InterruptedException {
+        if (puntoControl != null) {
+            puntoControl.entrarProductor();
+            enPuntoControl = true;
+        }
+    }
+    
+    private void salirPuntoControl() {
+        if (enPuntoControl) {
+            enPuntoControl = false;
+            puntoControl.salirProductor();
+        }
+    }
+    
+    /**
+     * Entrega el lote acumulado al buffer en una sola operación. Si el buffer
+     * está cerrado el productor se detiene.
+     *
+     * @param posicion byte siguiente al último número del lote
+     */
+    private void entregarLote(long posicion) throws InterruptedException {
+        EventosJfr.Poner evento = new EventosJfr.Poner();
+        evento.begin();
+        boolean entregado = cantidadLote == 1
+            ? buffer.ponerEmpaquetado(lote[0])
+            : buffer.ponerLoteEmpaquetado(lote, cantidadLote);
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.cantidad = cantidadLote;
+            evento.valor = ProductoEmpaquetado.valor(lote[0]);
+            evento.ocupacion = buffer.getTamano();
+            evento.aceptado = entregado;
+            evento.commit();
+        }
+        
+        eventoLote.end();
+        if (eventoLote.shouldCommit()) {
+            eventoLote.etapa = "producción";
+            eventoLote.cantidad = cantidadLote;
+            eventoLote.commit();
+        }
+        
+        if (!entregado) {
+            ejecutando = false;
+            return;
+        }
+        
+        posicionEntregada.set(posicion);
+        observador.productosProducidos(lote, cantidadLote, buffer);
+        cantidadLote = 0;
+        salirPuntoControl();
+        
+        esperar(observador.getDelayProductor()); // Un delay por producto o por lote
+    }
+    
+    /**
+     * Envía el lote sin clasificar a la etapa de clasificación. El anuncio al
+     * punto de control pasa al lote y lo libera la entrega.
+     */
+    private void enviarLote(long posicion) throws InterruptedException {
+        eventoLote.end();
+        if (eventoLote.shouldCommit()) {
+            eventoLote.etapa = "lectura";
+            eventoLote.cantidad = cantidadLote;
+            eventoLote.commit();
+        }
+        
+        if (!clasificacion.enviar(this, lote, cantidadLote, posicion, enPuntoControl ? puntoControl : null)) {
+            ejecutando = false;
+            return;
+        }
+        enPuntoControl = false;
+        cantidadLote = 0;
+        
+        esperar(observador.getDelayProductor());
+    }
+    
+    /**
+     * Lo llama la etapa de entrega cuando un lote enviado quedó en el buffer;
+     * sin orden, desde varios hilos a la vez
+     */
+    void entregado(long[] productos, int cantidad, long posicion) {
+        // Sin orden, un lote puede entregarse después de otro leído más tarde;
+        // al capturar un punto de control ya se entregaron todos
+        posicionEntregada.accumulateAndGet(posicion, Math::max);
+        observador.productosProducidos(productos, cantidad, buffer);
+    }
+    
+    /**
+     * Espera artificial para la animación; sin retardo no se llama a sleep
+     */
+    static void esperar(int milisegundos) throws InterruptedException {
+        if (milisegundos > 0) {
+            Thread.sleep(milisegundos);
+        }
+    }
+
+    public void detener() {
+        ejecutando = false;
+    }
+
+    /**
+     * Posición desde la que seguir leyendo al reanudar; los números anteriores
+     * del tramo ya están en el buffer
+     */
+    public long getPosicionEntregada() {
+        return posicionEntregada.get();
+    }
+
+    public long getFin() {
+        return fin;
+    }
+}
+
+/**
+ * Clase que representa un consumidor que toma números del buffer según su tipo
+ */
+class Consumidor implements Runnable {
+    // Espera máxima en el buffer antes de volver a revisar si debe detenerse
+    private static final long ESPERA_TOMA_MS = 100;
+    
+    private final BufferCompartido buffer;
+    private final String tipo;
+    private final int id;
+    private final ObservadorSimulacion observador;
+    private final long[] lote;           // Productos empaquetados tomados del buffer
+    private final AgregadoCategoria agregado; // Estadísticas compartidas con los consumidores del mismo tipo
+    private final int[] cubetasLote = new int[AgregadoCategoria.CUBETAS]; // Histograma de cada lote antes de publicarlo
+    private volatile boolean ejecutando = true;
+    private long suma = 0;
+    private PuntoControl puntoControl;   // null sin puntos de control
+
+    public Consumidor(BufferCompartido buffer, String tipo, int id, ObservadorSimulacion observador) {
+        this(buffer, tipo, id, observador, 1);
+    }
+
+    public Consumidor(BufferCompartido buffer, String tipo, int id, ObservadorSimulacion observador, int tamanoLote) {
+        this(buffer, tipo, id, observador, tamanoLote, new AgregadoCategoria(tipo));
+    }
+
+    /**
+     * Con tamanoLote mayor que 1 el consumidor toma los productos con tomarLoteEmpaquetado
+     */
+    public Consumidor(BufferCompartido buffer, String tipo, int id, ObservadorSimulacion observador, int tamanoLote,
+                      AgregadoCategoria agregado) {
+        this.buffer = buffer;
+        this.tipo = tipo;
+        this.id = id;
+        this.observador = observador;
+        this.lote = new long[tamanoLote];
+        this.agregado = agregado;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (ejecutando) {
+                // Verificar si la animación está pausada
+                if (observador.estaPausado()) continue;
+                
+                int cantidad = tomar();
+                if (cantidad == BufferCompartido.CERRADO) {
+                    break; // Buffer cerrado y sin productos de este tipo
+                }
+                if (cantidad == 0) {
+                    continue; // Venció la espera: revisar si debe detenerse
+                }
+                procesar(cantidad);
+                
+                Productor.esperar(observador.getDelayConsumidor()); // Usar el delay dinámico
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            informarFin();
+        }
+    }
+    
+    /**
+     * Toma uno o varios productos empaquetados del buffer, esperando a lo sumo
+     * ESPERA_TOMA_MS. Devuelve 0 si venció la espera o BufferCompartido.CERRADO.
+     */
+    int tomar() throws InterruptedException {
+        if (puntoControl != null && !puntoControl.entrarConsumidor(ESPERA_TOMA_MS)) {
+            return 0; // Hay un punto de control en curso
+        }
+        EventosJfr.Tomar evento = new EventosJfr.Tomar();
+        evento.begin();
+        int cantidad = 0;
+        try {
+            cantidad = buffer.tomarLoteEmpaquetado(tipo, lote, ESPERA_TOMA_MS, TimeUnit.MILLISECONDS);
+        } finally {
+            if (cantidad <= 0) {
+                salirPuntoControl();
+            }
+        }
+        registrarToma(evento, cantidad);
+        return cantidad;
+    }
+    
+    /**
+     * Toma sin esperar los productos disponibles; devuelve 0 si no hay o
+     * BufferCompartido.CERRADO
+     */
+    int intentarTomar() {
+        if (puntoControl != null && !puntoControl.intentarEntrarConsumidor()) {
+            return 0;
+        }
+        EventosJfr.Tomar evento = new EventosJfr.Tomar();
+        evento.begin();
+        int cantidad = 0;
+        try {
+            cantidad = buffer.intentarTomarLoteEmpaquetado(tipo, lote);
+        } finally {
+            if (cantidad <= 0) {
+                salirPuntoControl();
+            }
+        }
+        registrarToma(evento, cantidad);
+        return cantidad;
+    }
+    
+    private void registrarToma(EventosJfr.Tomar evento, int cantidad) {
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.categoria = tipo;
+            evento.cantidad = cantidad;
+            evento.valor = cantidad > 0 ? ProductoEmpaquetado.valor(lote[0]) : 0;
+            evento.pendientes = buffer.getPendientes(tipo);
+            evento.commit();
+        }
+    }
+    
+    /**
+     * Registra los productos tomados en el agregado de la categoría, los suma y
+     * los notifica al observador. Se llama después de cada toma con productos.
+     */
+    void procesar(int cantidad) {
+        EventosJfr.Lote evento = new EventosJfr.Lote();
+        evento.begin();
+        try {
+            suma += agregado.registrar(lote, cantidad, cubetasLote);
+            observador.productosConsumidos(id, tipo, lote, cantidad, suma, buffer);
+        } finally {
+            salirPuntoControl();
+        }
+        
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.etapa = "consumo";
+            evento.categoria = tipo;
+            evento.cantidad = cantidad;
+            evento.commit();
+        }
+    }
+    
+    private void salirPuntoControl() {
+        if (puntoControl != null) {
+            puntoControl.salirConsumidor();
+        }
+    }
+    
+    void informarFin() {
+        System.out.println("Consumidor " + id + " (" + tipo + ") terminó con suma: " + suma);
+    }
+
+    public void detener() {
+        ejecutando = false;
+    }
+    
+    public boolean estaEjecutando() {
+        return ejecutando;
+    }
+    
+    public String getTipo() {
+        return tipo;
+    }
+    
+    public long getSuma() {
+        return suma;
+    }
+
+    /**
+     * Anuncia cada toma al punto de control, que guarda la suma entre lotes
+     */
+    public void setPuntoControl(PuntoControl puntoControl) {
+        this.puntoControl = puntoControl;
+    }
+
+    /**
+     * Parte de la suma guardada en un punto de control
+     */
+    public void restaurarSuma(long suma) {
+        this.suma = suma;
+    }
+}
+
+/**
+ * Clase para la animación gráfica
+ */
+class Animacion implements ObservadorSimulacion {
+    private JFrame frame;
+    private JList<String> logList;
+    private ModeloRegistro modeloRegistro;
+    private JPanel bufferPanel;
+    private JLabel[] sumaLabels;
+    private JLabel estadoProductor;
+    private JLabel[] estadoConsumidores;
+    private Font fuenteTitulos = new Font("Arial", Font.BOLD, 14);
+    private Font fuenteNormal = new Font("Arial", Font.PLAIN, 12);
+    
+    // Nuevos atributos para el panel de control
+    private JButton btnPausar;
+    private JButton btnReanudar;
+    private JButton btnReiniciar;
+    private volatile boolean pausado = false;
+    private final ReentrantLock cerrojoPausa = new ReentrantLock();
+    private final Condition reanudada = cerrojoPausa.newCondition();
+    
+    // Atributos para control de velocidad
+    private JSlider sliderVelocidad;
+    private JLabel lblVelocidad;
+    private volatile int delayProductor = 500;  // valor por defecto en ms
+    private volatile int delayConsumidor = 800; // valor por defecto en ms
+    
+    // Atributos para estadísticas
+    private Map<String, JLabel> estadisticas = new HashMap<>();
+    
+    // Estado escrito por los hilos de trabajo; la interfaz lo lee en cada refresco
+    private static final int REFRESCOS_POR_SEGUNDO = 30;
+    private static final int MAX_MENSAJES_PENDIENTES = 1000;
+    private static final int CAPACIDAD_REGISTRO = 5000;
+    private static final int PRODUCTOS_DIBUJADOS = 40; // Los demás del buffer solo se cuentan
+    private static final int MAX_CONSUMIDORES_SIN_DESPLAZAR = 6;
+    private final LongAdder totalProducidos = new LongAdder();
+    private final LongAdder totalConsumidos = new LongAdder();
+    private final LongAdder paresConsumidos = new LongAdder();
+    private final LongAdder imparesConsumidos = new LongAdder();
+    private final LongAdder primosConsumidos = new LongAdder();
+    private final AtomicLongArray sumas;
+    private final Map<String, AgregadoCategoria> agregados;
+    private final ConcurrentLinkedQueue<String> mensajesPendientes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger cantidadMensajesPendientes = new AtomicInteger();
+    private final LongAdder mensajesOmitidos = new LongAdder();
+    private volatile BufferCompartido bufferObservado;
+    
+    // Filtro y muestreo de los mensajes de detalle
+    private final int muestreoDetalle;
+    private volatile boolean mostrarDetalle = true;
+    
+    // Último estado pintado, solo se usa en el EDT
+    private final long[] estadisticasMostradas = new long[5];
+    private final long[] sumasMostradas;
+    private final long[] agregadosMostrados = new long[3];
+    private List<Producto> bufferMostrado;
+    private int tamanoMostrado = -1;
+    private int utilizacionMostrada = -1;
+    private int capacidadMostrada = -1;
+    
+    public Animacion(int numConsumidores) {
+        this(numConsumidores, 1, AgregadoCategoria.porTipo());
+    }
+    
+    /**
+     * @param muestreoDetalle Se registra en promedio uno de cada muestreoDetalle
+     *                        mensajes de producción y consumo (1 = todos)
+     * @param agregados       Estadísticas por tipo que actualizan los consumidores
+     */
+    public Animacion(int numConsumidores, int muestreoDetalle, Map<String, AgregadoCategoria> agregados) {
+        this.muestreoDetalle = muestreoDetalle;
+        this.agregados = agregados;
+        this.sumas = new AtomicLongArray(numConsumidores);
+        this.sumasMostradas = new long[numConsumidores];
+        
+        SwingUtilities.invokeLater(() -> {
+            // Configurar el estilo del Look and Feel
+            try {
+                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            } catch (Exception e) {
+                System.err.println("Error al configurar Look and Feel: " + e.getMessage());
+            }
+            
+            // Crear la ventana principal
+            frame = new JFrame("Simulación Productor-Consumidor con Semáforos");
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.setSize(1100, 700); // Aumentado tamaño para acomodar panel de control
+            frame.setLayout(new BorderLayout(10, 10));
+            frame.getContentPane().setBackground(new Color(240, 240, 240));
+            
+            // Panel de información
+            JPanel infoPanel = new JPanel(new BorderLayout(5, 5));
+            infoPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+            
+            // Panel de estado
+            JPanel estadoPanel = new JPanel(new GridLayout(1 + numConsumidores, 1, 5, 5));
+            estadoPanel.setBorder(BorderFactory.createTitledBorder(
+                BorderFactory.createLineBorder(new Color(100, 100, 100), 1, true),
+                "Estado de Procesos",
+                TitledBorder.LEFT,
+                TitledBorder.TOP,
+                fuenteTitulos
+            ));
+            
+            // Estado del productor
+            estadoProductor = new JLabel("Productor: Esperando");
+            estadoProductor.setFont(fuenteNormal);
+            try {
+                estadoProductor.setIcon(new ImageIcon(getClass().getResource("/images/wait.png")));
+            } catch (Exception e) {
+                // Si no encuentra el ícono, continuar sin él
+            }
+            estadoPanel.add(estadoProductor);
+            
+            // Estado de los consumidores
+            estadoConsumidores = new JLabel[numConsumidores];
+            for (int i = 0; i < numConsumidores; i++) {
+                String tipo = "";
+                if (i % 3 == 0) tipo = "par";
+                else if (i % 3 == 1) tipo = "impar";
+                else tipo = "primo";
+                
+                estadoConsumidores[i] = new JLabel("Consumidor " + i + " (" + tipo + "): Esperando");
+                estadoConsumidores[i].setFont(fuenteNormal);
+                try {
+                    estadoConsumidores[i].setIcon(new ImageIcon(getClass().getResource("/images/wait.png")));
+                } catch (Exception e) {
+                    // Si no encuentra el ícono, continuar sin él
+                }
+                estadoPanel.add(estadoConsumidores[i]);
+            }
+            
+            infoPanel.add(desplazableSiHayMuchos(estadoPanel, numConsumidores), BorderLayout.NORTH);
+            
+            // Panel superior para el buffer
+            JPanel bufferContainer = new JPanel(new BorderLayout());
+            JLabel bufferTitle = new JLabel("Buffer compartido", SwingConstants.CENTER);
+            bufferTitle.setFont(fuenteTitulos);
+            bufferContainer.add(bufferTitle, BorderLayout.NORTH);
+            
+            bufferPanel = new JPanel();
+            bufferPanel.setLayout(new FlowLayout(FlowLayout.CENTER, 10, 10));
+            bufferPanel.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createEmptyBorder(5, 5, 5, 5),
+                BorderFactory.createLineBorder(new Color(200, 200, 200), 1, true)
+            ));
+            bufferPanel.setBackground(Color.WHITE);
+            
+            bufferContainer.add(bufferPanel, BorderLayout.CENTER);
+            frame.add(bufferContainer, BorderLayout.NORTH);
+            
+            // Panel central para los logs
+            JLabel logTitle = new JLabel("Registro de actividad", SwingConstants.CENTER);
+            logTitle.setFont(fuenteTitulos);
+            
+            // Lista virtualizada: con altura y ancho de celda fijos solo se pintan
+            // las filas visibles, y el modelo conserva las últimas entradas
+            modeloRegistro = new ModeloRegistro(CAPACIDAD_REGISTRO);
+            logList = new JList<>(modeloRegistro);
+            logList.setFont(new Font("Monospaced", Font.PLAIN, 12));
+            logList.setPrototypeCellValue("[00:00:00] Consumidor 000 (impar) consumió: 0000000000, Suma: 0000000000");
+            logList.setVisibleRowCount(15);
+            logList.setBackground(new Color(250, 250, 250));
+            logList.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+            
+            JScrollPane scrollPane = new JScrollPane(logList);
+            scrollPane.setBorder(BorderFactory.createLineBorder(new Color(200, 200, 200), 1, true));
+            
+            // Filtro por nivel: los mensajes de detalle (uno por producto) se pueden ocultar
+            JComboBox<String> filtroRegistro = new JComboBox<>(new String[] {"Todos los mensajes", "Solo avisos"});
+            filtroRegistro.setFont(fuenteNormal);
+            filtroRegistro.addActionListener(e -> mostrarDetalle = filtroRegistro.getSelectedIndex() == 0);
+            
+            JPanel logHeader = new JPanel(new BorderLayout(5, 5));
+            logHeader.add(logTitle, BorderLayout.CENTER);
+            logHeader.add(filtroRegistro, BorderLayout.EAST);
+            
+            JPanel logPanel = new JPanel(new BorderLayout(5, 5));
+            logPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+            logPanel.add(logHeader, BorderLayout.NORTH);
+            logPanel.add(scrollPane, BorderLayout.CENTER);
+            
+            frame.add(logPanel, BorderLayout.CENTER);
+            
+            // Panel inferior para las sumas
+            JPanel sumasContainer = new JPanel(new BorderLayout(5, 5));
+            JLabel sumasTitle = new JLabel("Sumas Acumuladas", SwingConstants.CENTER);
+            sumasTitle.setFont(fuenteTitulos);
+            sumasContainer.add(sumasTitle, BorderLayout.NORTH);
+            
+            JPanel sumasPanel = new JPanel(new GridLayout(1, numConsumidores, 15, 5));
+            sumasPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+            sumaLabels = new JLabel[numConsumidores];
+            
+            for (int i = 0; i < numConsumidores; i++) {
+                String tipo = "";
+                Color color = Color.BLACK;
+                
+                if (i % 3 == 0) {
+                    tipo = "Pares";
+                    color = new Color(0, 102, 204); // Azul
+                } else if (i % 3 == 1) {
+                    tipo = "Impares";
+                    color = new Color(0, 153, 0); // Verde
+                } else {
+                    tipo = "Primos";
+                    color = new Color(204, 0, 0); // Rojo
+                }
+                
+                JPanel consumidorPanel = new JPanel(new BorderLayout(5, 5));
+                consumidorPanel.setBorder(BorderFactory.createTitledBorder(
+                    BorderFactory.createLineBorder(color, 2, true),
+                    "Consumidor " + i + " (" + tipo + ")",
+                    TitledBorder.CENTER,
+                    TitledBorder.TOP,
+                    new Font("Arial", Font.BOLD, 12),
+                    color
+                ));
+                
+                sumaLabels[i] = new JLabel("0", SwingConstants.CENTER);
+                sumaLabels[i].setFont(new Font("Arial", Font.BOLD, 24));
+                sumaLabels[i].setForeground(color);
+                
+                consumidorPanel.add(sumaLabels[i], BorderLayout.CENTER);
+                sumasPanel.add(consumidorPanel);
+            }
+            
+            sumasContainer.add(desplazableSiHayMuchos(sumasPanel, numConsumidores), BorderLayout.CENTER);
+            frame.add(sumasContainer, BorderLayout.SOUTH);
+            
+            // Crear panel de control
+            crearPanelControl();
+            
+            // Mostrar ventana
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+            
+            // Refrescar la interfaz a frecuencia fija en lugar de una tarea por evento
+            Timer refresco = new Timer(1000 / REFRESCOS_POR_SEGUNDO, e -> refrescar());
+            refresco.start();
+        });
+    }
+    
+    /**
+     * Con muchos consumidores el panel se coloca en un área con desplazamiento
+     * de alto fijo para que no desplace al resto de la ventana
+     */
+    private static JComponent desplazableSiHayMuchos(JPanel panel, int numConsumidores) {
+        if (numConsumidores <= MAX_CONSUMIDORES_SIN_DESPLAZAR) {
+            return panel;
+        }
+        JScrollPane desplazable = new JScrollPane(panel);
+        desplazable.setPreferredSize(new Dimension(300, 150));
+        return desplazable;
+    }
+    
+    private void crearPanelControl() {
+        JPanel controlPanel = new JPanel(new GridLayout(5, 1, 5, 10)); // Aumentado para incluir slider
+        controlPanel.setBorder(BorderFactory.createTitledBorder(
+            BorderFactory.createLineBorder(new Color(100, 100, 100), 1, true),
+            "Control",
+            TitledBorder.CENTER,
+            TitledBorder.TOP,
+            fuenteTitulos
+        ));
+        
+        btnPausar = new JButton("Pausar");
+        btnReanudar = new JButton("Reanudar");
+        btnReiniciar = new JButton("Reiniciar");
+        
+        btnPausar.setFont(fuenteNormal);
+        btnReanudar.setFont(fuenteNormal);
+        btnReiniciar.setFont(fuenteNormal);
+        
+        btnReanudar.setEnabled(false);
+        
+        btnPausar.addActionListener(e -> {
+            pausado = true;
+            btnPausar.setEnabled(false);
+            btnReanudar.setEnabled(true);
+            registrar("Simulación pausada");
+        });
+        
+        btnReanudar.addActionListener(e -> {
+            pausado = false;
+            btnPausar.setEnabled(true);
+            btnReanudar.setEnabled(false);
+            registrar("Simulación reanudada");
+            cerrojoPausa.lock();
+            try {
+                reanudada.signalAll(); // Notificar a todos los hilos que estén esperando
+            } finally {
+                cerrojoPausa.unlock();
+            }
+        });
+        
+        // Botón de reinicio
+        btnReiniciar.addActionListener(e -> {
+            registrar("Reiniciando simulación...");
+            
+            // La funcionalidad real de reinicio se implementa en la clase principal
+            ProductorConsumidorSemaforos.reiniciarSimulacion();
+        });
+        
+        // Añadir control de velocidad
+        JPanel velocidadPanel = new JPanel(new BorderLayout(5, 5));
+        lblVelocidad = new JLabel("Velocidad: Normal", SwingConstants.CENTER);
+        lblVelocidad.setFont(fuenteNormal);
+        
+        sliderVelocidad = new JSlider(JSlider.HORIZONTAL, 1, 5, 3);
+        sliderVelocidad.setMajorTickSpacing(1);
+        sliderVelocidad.setPaintTicks(true);
+        sliderVelocidad.setPaintLabels(true);
+        sliderVelocidad.setSnapToTicks(true);
+        
+        // Etiquetas para el slider
+        Hashtable<Integer, JLabel> labelTable = new Hashtable<>();
+        labelTable.put(1, new JLabel("Muy lento"));
+        labelTable.put(2, new JLabel("Lento"));
+        labelTable.put(3, new JLabel("Normal"));
+        labelTable.put(4, new JLabel("Rápido"));
+        labelTable.put(5, new JLabel("Muy rápido"));
+        sliderVelocidad.setLabelTable(labelTable);
+        
+        sliderVelocidad.addChangeListener(e -> {
+            int valor = sliderVelocidad.getValue();
+            switch(valor) {
+                case 1: // Muy lento
+                    delayProductor = 2000;
+                    delayConsumidor = 3000;
+                    lblVelocidad.setText("Velocidad: Muy lenta");
+                    break;
+                case 2: // Lento
+                    delayProductor = 1000;
+                    delayConsumidor = 1500;
+                    lblVelocidad.setText("Velocidad: Lenta");
+                    break;
+                case 3: // Normal
+                    delayProductor = 500;
+                    delayConsumidor = 800;
+                    lblVelocidad.setText("Velocidad: Normal");
+                    break;
+                case 4: // Rápido
+                    delayProductor = 200;
+                    delayConsumidor = 300;
+                    lblVelocidad.setText("Velocidad: Rápida");
+                    break;
+                case 5: // Muy rápido
+                    delayProductor = 50;
+                    delayConsumidor = 100;
+                    lblVelocidad.setText("Velocidad: Muy rápida");
+                    break;
+            }
+        });
+        
+        velocidadPanel.add(lblVelocidad, BorderLayout.NORTH);
+        velocidadPanel.add(sliderVelocidad, BorderLayout.CENTER);
+        
+        // Añadir componentes al panel
+        controlPanel.add(btnPausar);
+        controlPanel.add(btnReanudar);
+        controlPanel.add(btnReiniciar);
+        controlPanel.add(velocidadPanel);
+        
+        JPanel eastPanel = new JPanel(new BorderLayout());
+        eastPanel.add(controlPanel, BorderLayout.NORTH);
+        
+        // Panel de estadísticas
+        JPanel statsPanel = new JPanel(new GridLayout(9, 1, 5, 5));
+        statsPanel.setBorder(BorderFactory.createTitledBorder(
+            BorderFactory.createLineBorder(new Color(100, 100, 100), 1, true),
+            "Estadísticas",
+            TitledBorder.CENTER,
+            TitledBorder.TOP,
+            fuenteTitulos
+        ));
+        
+        // Inicializar contadores
+        JLabel lblTotalProducidos = new JLabel("Total producidos: 0", SwingConstants.LEFT);
+        JLabel lblTotalConsumidos = new JLabel("Total consumidos: 0", SwingConstants.LEFT);
+        JLabel lblParesConsumidos = new JLabel("Pares consumidos: 0", SwingConstants.LEFT);
+        JLabel lblImparesConsumidos = new JLabel("Impares consumidos: 0", SwingConstants.LEFT);
+        JLabel lblPrimosConsumidos = new JLabel("Primos consumidos: 0", SwingConstants.LEFT);
+        JLabel lblBufferUtilizacion = new JLabel("Buffer utilización: 0%", SwingConstants.LEFT);
+        JLabel lblAgregadoPar = new JLabel("Pares: sin datos", SwingConstants.LEFT);
+        JLabel lblAgregadoImpar = new JLabel("Impares: sin datos", SwingConstants.LEFT);
+        JLabel lblAgregadoPrimo = new JLabel("Primos: sin datos", SwingConstants.LEFT);
+        
+        lblTotalProducidos.setFont(fuenteNormal);
+        lblTotalConsumidos.setFont(fuenteNormal);
+        lblParesConsumidos.setFont(fuenteNormal);
+        lblImparesConsumidos.setFont(fuenteNormal);
+        lblPrimosConsumidos.setFont(fuenteNormal);
+        lblBufferUtilizacion.setFont(fuenteNormal);
+        lblAgregadoPar.setFont(fuenteNormal);
+        lblAgregadoImpar.setFont(fuenteNormal);
+        lblAgregadoPrimo.setFont(fuenteNormal);
+        
+        statsPanel.add(lblTotalProducidos);
+        statsPanel.add(lblTotalConsumidos);
+        statsPanel.add(lblParesConsumidos);
+        statsPanel.add(lblImparesConsumidos);
+        statsPanel.add(lblPrimosConsumidos);
+        statsPanel.add(lblBufferUtilizacion);
+        statsPanel.add(lblAgregadoPar);
+        statsPanel.add(lblAgregadoImpar);
+        statsPanel.add(lblAgregadoPrimo);
+        
+        // Guardar referencias para actualizar estos valores
+        estadisticas.put("totalProducidos", lblTotalProducidos);
+        estadisticas.put("totalConsumidos", lblTotalConsumidos);
+        estadisticas.put("paresConsumidos", lblParesConsumidos);
+        estadisticas.put("imparesConsumidos", lblImparesConsumidos);
+        estadisticas.put("primosConsumidos", lblPrimosConsumidos);
+        estadisticas.put("bufferUtilizacion", lblBufferUtilizacion);
+        estadisticas.put("agregado-par", lblAgregadoPar);
+        estadisticas.put("agregado-impar", lblAgregadoImpar);
+        estadisticas.put("agregado-primo", lblAgregadoPrimo);
+        
+        eastPanel.add(statsPanel, BorderLayout.CENTER);
+        
+        // Agregar panel al este de la ventana principal
+        frame.add(eastPanel, BorderLayout.EAST);
+    }
+    
+    @Override
+    public void productosProducidos(long[] productos, int cantidad, BufferCompartido buffer) {
+        if (registrarDetalle()) {
+            if (cantidad == 1) {
+                actualizar("Productor produjo: " + ProductoEmpaquetado.valor(productos[0]));
+            } else {
+                actualizar("Productor produjo lote de " + cantidad + ": " + listarValores(productos, cantidad));
+            }
+        }
+        totalProducidos.add(cantidad);
+        observar(buffer);
+    }
+    
+    @Override
+    public void productosConsumidos(int idConsumidor, String tipo, long[] productos, int cantidad, long suma,
+                                    BufferCompartido buffer) {
+        if (registrarDetalle()) {
+            if (cantidad == 1) {
+                actualizar("Consumidor " + idConsumidor + " (" + tipo + ") consumió: " + ProductoEmpaquetado.valor(productos[0]) + ", Suma: " + suma);
+            } else {
+                actualizar("Consumidor " + idConsumidor + " (" + tipo + ") consumió lote de " + cantidad + ": " + listarValores(productos, cantidad) + ", Suma: " + suma);
+            }
+        }
+        sumas.set(idConsumidor, suma);
+        contarConsumo(tipo, cantidad);
+        observar(buffer);
+    }
+    
+    /**
+     * Texto con los valores de un lote, con el formato de una lista
+     */
+    private static String listarValores(long[] productos, int cantidad) {
+        StringBuilder texto = new StringBuilder("[");
+        for (int i = 0; i < cantidad; i++) {
+            if (i > 0) texto.append(", ");
+            texto.append(ProductoEmpaquetado.valor(productos[i]));
+        }
+        return texto.append(']').toString();
+    }
+    
+    /**
+     * Los consumos se cuentan por el tipo del consumidor: un impar primo
+     * se entrega a ambos consumidores y cuenta una vez en cada categoría
+     */
+    private void contarConsumo(String tipo, int cantidad) {
+        totalConsumidos.add(cantidad);
+        switch (tipo) {
+            case "par":
+                paresConsumidos.add(cantidad);
+                break;
+            case "impar":
+                imparesConsumidos.add(cantidad);
+                break;
+            case "primo":
+                primosConsumidos.add(cantidad);
+                break;
+        }
+    }
+    
+    /**
+     * Decide si se registra un mensaje de detalle antes de construirlo. El muestreo
+     * usa el generador del propio hilo para no compartir estado entre hilos.
+     */
+    private boolean registrarDetalle() {
+        return mostrarDetalle
+            && (muestreoDetalle <= 1 || ThreadLocalRandom.current().nextInt(muestreoDetalle) == 0);
+    }
+    
+    /**
+     * Recuerda el buffer que se debe mostrar; solo escribe si cambió
+     */
+    private void observar(BufferCompartido buffer) {
+        if (bufferObservado != buffer) {
+            bufferObservado = buffer;
+        }
+    }
+    
+    /**
+     * Usa un ReentrantLock en lugar de synchronized y wait() para que los hilos
+     * virtuales en pausa liberen su hilo portador
+     */
+    @Override
+    public boolean estaPausado() throws InterruptedException {
+        if (!pausado) {
+            return false;
+        }
+        cerrojoPausa.lock();
+        try {
+            while (pausado) {
+                reanudada.await();
+            }
+        } finally {
+            cerrojoPausa.unlock();
+        }
+        return false;
+    }
+    
+    @Override
+    public int getDelayProductor() {
+        return delayProductor;
+    }
+
+    @Override
+    public int getDelayConsumidor() {
+        return delayConsumidor;
+    }
+    
+    /**
+     * Encola un mensaje para el registro de actividad. Si hay demasiados mensajes
+     * sin mostrar se descarta y solo se cuenta, para que la cola no crezca sin límite.
+     */
+    @Override
+    public void actualizar(String mensaje) {
+        if (cantidadMensajesPendientes.incrementAndGet() > MAX_MENSAJES_PENDIENTES) {
+            cantidadMensajesPendientes.decrementAndGet();
+            mensajesOmitidos.increment();
+            return;
+        }
+        mensajesPendientes.add(mensaje);
+    }
+    
+    /**
+     * Pinta el estado acumulado desde el refresco anterior. Lo ejecuta el Timer en
+     * el EDT a frecuencia fija, así que su coste no depende de cuántos productos pasen.
+     */
+    private void refrescar() {
+        // El estado de los procesos se deduce de los contadores, ya que los
+        // mensajes de detalle pueden estar filtrados o muestreados
+        if (totalProducidos.sum() != estadisticasMostradas[0]) {
+            mostrarEstado(estadoProductor, "Productor: Produciendo", "/images/producing.png");
+        }
+        
+        refrescarRegistro();
+        refrescarEstadisticas();
+        
+        for (int i = 0; i < sumaLabels.length; i++) {
+            long suma = sumas.get(i);
+            if (suma != sumasMostradas[i]) {
+                sumasMostradas[i] = suma;
+                sumaLabels[i].setText(String.valueOf(suma));
+                mostrarEstado(estadoConsumidores[i], "Consumidor " + i + ": Consumiendo", "/images/consuming.png");
+            }
+        }
+        
+        BufferCompartido buffer = bufferObservado;
+        if (buffer != null) {
+            // Solo se copian y dibujan los primeros productos, así el coste no
+            // crece con la capacidad del buffer
+            int tamano = buffer.getTamano();
+            List<Producto> elementos = buffer.getElementos(PRODUCTOS_DIBUJADOS);
+            if (!elementos.equals(bufferMostrado) || tamano != tamanoMostrado) {
+                bufferMostrado = elementos;
+                tamanoMostrado = tamano;
+                pintarBuffer(elementos, tamano);
+            }
+            
+            // La capacidad puede cambiar en marcha con la capacidad adaptativa
+            int capacidad = buffer.getCapacidad();
+            int porcentaje = (int) Math.min(100, (tamano * 100L) / capacidad);
+            if (porcentaje != utilizacionMostrada || capacidad != capacidadMostrada) {
+                utilizacionMostrada = porcentaje;
+                capacidadMostrada = capacidad;
+                estadisticas.get("bufferUtilizacion").setText("Buffer utilización: " + porcentaje + "% de " + capacidad);
+            }
+        }
+    }
+    
+    private void refrescarRegistro() {
+        long omitidos = mensajesOmitidos.sumThenReset();
+        if (cantidadMensajesPendientes.get() == 0 && omitidos == 0) {
+            return;
+        }
+        
+        // Añadir timestamp a los mensajes
+        String timestamp = "[" + java.time.LocalTime.now().toString().substring(0, 8) + "] ";
+        List<String> entradas = new ArrayList<>();
+        String mensaje;
+        while ((mensaje = mensajesPendientes.poll()) != null) {
+            cantidadMensajesPendientes.decrementAndGet();
+            entradas.add(timestamp + mensaje);
+            if (mensaje.startsWith("Productor ha terminado")) {
+                mostrarEstado(estadoProductor, "Productor: Finalizado", "/images/done.png");
+            }
+        }
+        if (omitidos > 0) {
+            entradas.add(timestamp + "(" + omitidos + " mensajes omitidos)");
+        }
+        
+        modeloRegistro.agregarTodas(entradas);
+        logList.ensureIndexIsVisible(modeloRegistro.getSize() - 1);
+    }
+    
+    /**
+     * Registra directamente un mensaje desde el EDT (acciones del panel de control)
+     */
+    private void registrar(String mensaje) {
+        modeloRegistro.agregar("[" + java.time.LocalTime.now().toString().substring(0, 8) + "] " + mensaje);
+        logList.ensureIndexIsVisible(modeloRegistro.getSize() - 1);
+    }
+    
+    private void refrescarEstadisticas() {
+        long[] valores = {
+            totalProducidos.sum(),
+            totalConsumidos.sum(),
+            paresConsumidos.sum(),
+            imparesConsumidos.sum(),
+            primosConsumidos.sum()
+        };
+        String[] claves = {"totalProducidos", "totalConsumidos", "paresConsumidos", "imparesConsumidos", "primosConsumidos"};
+        String[] textos = {"Total producidos: ", "Total consumidos: ", "Pares consumidos: ", "Impares consumidos: ", "Primos consumidos: "};
+        
+        for (int i = 0; i < valores.length; i++) {
+            if (valores[i] != estadisticasMostradas[i]) {
+                estadisticasMostradas[i] = valores[i];
+                estadisticas.get(claves[i]).setText(textos[i] + valores[i]);
+            }
+        }
+        
+        // Media, mínimo y máximo de cada categoría, solo si recibió productos desde el último refresco
+        String[] tipos = {"par", "impar", "primo"};
+        String[] nombres = {"Pares", "Impares", "Primos"};
+        for (int i = 0; i < tipos.length; i++) {
+            AgregadoCategoria.Resumen resumen = agregados.get(tipos[i]).instantanea();
+            if (resumen.getCantidad() == agregadosMostrados[i]) {
+                continue;
+            }
+            agregadosMostrados[i] = resumen.getCantidad();
+            JLabel etiqueta = estadisticas.get("agregado-" + tipos[i]);
+            if (resumen.getCantidad() == 0) {
+                etiqueta.setText(nombres[i] + ": sin datos");
+                etiqueta.setToolTipText(null);
+            } else {
+                etiqueta.setText(String.format("%s: media %.1f, mín %d, máx %d",
+                    nombres[i], resumen.getMedia(), resumen.getMinimo(), resumen.getMaximo()));
+                etiqueta.setToolTipText("Suma: " + resumen.getSuma());
+            }
+        }
+    }
+    
+    /**
+     * Cambia el texto y el ícono de una etiqueta de estado si no los tiene ya
+     */
+    private void mostrarEstado(JLabel etiqueta, String texto, String icono) {
+        if (texto.equals(etiqueta.getText())) {
+            return;
+        }
+        etiqueta.setText(texto);
+        try {
+            etiqueta.setIcon(new ImageIcon(getClass().getResource(icono)));
+        } catch (Exception e) {
+            // Si no encuentra el ícono, continuar sin él
+        }
+    }
+    
+    /**
+     * Dibuja los productos del buffer; se llama desde el refresco en el EDT
+     *
+     * @param tamano productos en el buffer; los que no se dibujan se cuentan al final
+     */
+    private void pintarBuffer(List<Producto> productos, int tamano) {
+        bufferPanel.removeAll();
+        
+        // Si no hay productos, mostrar mensaje
+        if (productos.isEmpty() && tamano == 0) {
+            JLabel emptyLabel = new JLabel("Buffer vacío");
+            emptyLabel.setFont(new Font("Arial", Font.ITALIC, 12));
+            emptyLabel.setForeground(Color.GRAY);
+            bufferPanel.add(emptyLabel);
+        } else {
+            // Mostrar cada producto como un elemento visual
+            for (Producto p : productos) {
+                JPanel productoPanel = new JPanel();
+                productoPanel.setPreferredSize(new Dimension(50, 50));
+                productoPanel.setBorder(BorderFactory.createLineBorder(Color.GRAY, 1, true));
+                productoPanel.setLayout(new BorderLayout());
+                
+                JLabel valorLabel = new JLabel(String.valueOf(p.getValor()), SwingConstants.CENTER);
+                valorLabel.setFont(new Font("Arial", Font.BOLD, 16));
+                
+                // Asignar color según el tipo de número
+                Color backgroundColor;
+                if (p.esPrimo()) {
+                    backgroundColor = new Color(255, 200, 200); // Rojo claro
+                    valorLabel.setForeground(new Color(204, 0, 0));
+                } else if (p.esPar()) {
+                    backgroundColor = new Color(200, 220, 255); // Azul claro
+                    valorLabel.setForeground(new Color(0, 102, 204));
+                } else {
+                    backgroundColor = new Color(200, 255, 200); // Verde claro
+                    valorLabel.setForeground(new Color(0, 153, 0));
+                }
+                
+                productoPanel.setBackground(backgroundColor);
+                productoPanel.add(valorLabel, BorderLayout.CENTER);
+                
+                // Añadir etiqueta pequeña para indicar el tipo
+                JLabel tipoLabel = new JLabel("", SwingConstants.CENTER);
+                tipoLabel.setFont(new Font("Arial", Font.PLAIN, 10));   
+                
+                if (p.esPrimo()) {
+                    tipoLabel.setText("Primo");
+                } else if (p.esPar()) {
+                    tipoLabel.setText("Par");
+                } else {
+                    tipoLabel.setText("Impar");
+                }
+                
+                productoPanel.add(tipoLabel, BorderLayout.SOUTH);
+                bufferPanel.add(productoPanel);
+            }
+            if (tamano > productos.size()) {
+                JLabel restoLabel = new JLabel("…y " + (tamano - productos.size()) + " más");
+                restoLabel.setFont(new Font("Arial", Font.ITALIC, 12));
+                restoLabel.setForeground(Color.GRAY);
+                bufferPanel.add(restoLabel);
+            }
+        }
+        
+        bufferPanel.revalidate();
+        bufferPanel.repaint();
+    }
+}
+
+/**
+ * Clase principal que orquesta todo el sistema
+ */
+public class ProductorConsumidorSemaforos {
+    // Variables de clase para permitir reinicio
+    private static BufferCompartido buffer;
+    private static Animacion animacion;
+    private static ObservadorSimulacion observador;
+    private static List<Productor> productores;
+    private static List<Thread> threadsProductores;
+    private static List<Consumidor> consumidores;
+    private static List<Thread> threadsConsumidores;
+    private static String archivoNumeros;
+    private static String fuente;                   // archivo, entrada, tuberia, seguimiento o sintetica
+    private static long esperaSeguimiento;          // ms entre comprobaciones del archivo seguido
+    private static GeneradorParalelo generadorSintetico; // null salvo con la fuente sintética
+    private static long semillaSintetica;
+    private static long cantidadSintetica;          // 0 = sin fin
+    private static int numConsumidores;
+    private static int numProductores;
+    private static int tamanoLote;
+    private static boolean consumidoresVirtuales;
+    private static boolean productoresVirtuales;
+    private static PoolConsumidores poolConsumidores;
+    private static Map<String, AgregadoCategoria> agregados; // Estadísticas por tipo de consumidor
+    private static MetricasBuffer metricasBuffer; // null si el buffer no está instrumentado
+    private static BufferDesborde desborde; // null sin --desborde
+    private static AjusteCapacidad ajusteCapacidad; // null con capacidad fija
+    private static PuntoControl puntoControl; // null sin --puntoControl ni --reanudar
+    private static PuntoControl.Estado reanudacion; // Punto de control del que se reanuda, hasta crear los hilos
+    private static int paralelismoConsumo; // 0 = un hilo por consumidor
+    private static int clasificadores;     // 0 = cada productor clasifica lo que lee
+    private static int capacidadEtapas;
+    private static boolean clasificacionOrdenada;
+    private static int hilosEntrega;       // 0 = uno por productor
+    private static ClasificacionParalela clasificacion; // null sin --clasificadores
+    private static final long ESPERA_DETENCION_MS = 1000;
+    
+    public static void main(String[] args) {
+        // Configuración
+        Map<String, String> opciones = leerOpciones(args);
+        // Capacidad inicial y límites para ajustarla en marcha (--capacidad, --capacidadMin, --capacidadMax)
+        int tamanoBuffer = Integer.parseInt(opciones.getOrDefault("capacidad", "10"));
+        int capacidadMinima = Integer.parseInt(opciones.getOrDefault("capacidadMin", String.valueOf(tamanoBuffer)));
+        int capacidadMaxima = Integer.parseInt(opciones.getOrDefault("capacidadMax", String.valueOf(tamanoBuffer)));
+        if (capacidadMinima < 1 || capacidadMinima > tamanoBuffer || capacidadMaxima < tamanoBuffer) {
+            throw new IllegalArgumentException("Se requiere 1 <= capacidadMin <= capacidad <= capacidadMax");
+        }
+        boolean capacidadAdaptativa = capacidadMinima < capacidadMaxima;
+        archivoNumeros = opciones.getOrDefault("archivo", "numeros.txt");
+        
+        // De dónde leen los productores (--fuente): el archivo, la entrada
+        // estándar, una tubería con nombre o un archivo que crece (--archivo), o
+        // números generados en memoria. Con las fuentes sin fin la simulación
+        // funciona como un servicio que procesa lo que va llegando.
+        fuente = opciones.getOrDefault("fuente", "archivo");
+        esperaSeguimiento = Long.parseLong(opciones.getOrDefault("esperaSeguimiento", "100"));
+        if (fuente.equals("sintetica")) {
+            // --cantidad=0 no termina nunca; --distribucion, --categoria, --min,
+            // --max y --semilla como en GeneradorNumeros
+            cantidadSintetica = Long.parseLong(opciones.getOrDefault("cantidad", "0"));
+            semillaSintetica = opciones.containsKey("semilla")
+                ? Long.parseLong(opciones.get("semilla"))
+                : ThreadLocalRandom.current().nextLong();
+            generadorSintetico = new GeneradorParalelo(cantidadSintetica,
+                Integer.parseInt(opciones.getOrDefault("min", "1")),
+                Integer.parseInt(opciones.getOrDefault("max", "1000")),
+                opciones.getOrDefault("distribucion", "uniforme"), opciones.getOrDefault("categoria", "primo"),
+                semillaSintetica, 1);
+            System.out.println("Semilla: " + semillaSintetica);
+        }
+        // Consumidores en hilos propios o en un pool con robo de trabajo (--consumo=hilos|robo)
+        String consumo = opciones.getOrDefault("consumo", "hilos");
+        if (!consumo.equals("hilos") && !consumo.equals("robo")) {
+            throw new IllegalArgumentException("Modo de consumo desconocido: " + consumo);
+        }
+        int nucleos = Runtime.getRuntime().availableProcessors();
+        paralelismoConsumo = consumo.equals("robo")
+            ? Integer.parseInt(opciones.getOrDefault("paralelismo", String.valueOf(nucleos)))
+            : 0;
+        
+        // Múltiplo de 3 como especifica el problema: N consumidores de cada tipo. Con
+        // el pool, por defecto uno por trabajador para que cualquier categoría pueda ocuparlos todos
+        String porTipo = paralelismoConsumo > 0 ? String.valueOf(paralelismoConsumo) : "1";
+        numConsumidores = 3 * Integer.parseInt(opciones.getOrDefault("consumidoresPorTipo", porTipo));
+        tamanoLote = Integer.parseInt(opciones.getOrDefault("lote", "1")); // 1 = un producto por operación
+        numProductores = Integer.parseInt(opciones.getOrDefault("productores", "1")); // Cada uno lee un tramo del archivo
+        
+        // Clasificación en --clasificadores=N hilos aparte de la lectura, con
+        // colas de --colaEtapas=N lotes entre etapas, --entregas=N hilos que
+        // ponen los lotes en el buffer y, con --ordenado, entrega en el orden
+        // de lectura por un solo hilo
+        clasificadores = Integer.parseInt(opciones.getOrDefault("clasificadores", "0"));
+        capacidadEtapas = Integer.parseInt(opciones.getOrDefault("colaEtapas", "4"));
+        clasificacionOrdenada = opciones.containsKey("ordenado");
+        hilosEntrega = Integer.parseInt(opciones.getOrDefault("entregas", "0"));
+        
+        // Hilos de plataforma o virtuales (--hilos=virtuales, y --productoresVirtuales para los productores)
+        String hilos = opciones.getOrDefault("hilos", "plataforma");
+        if (!hilos.equals("plataforma") && !hilos.equals("virtuales")) {
+            throw new IllegalArgumentException("Tipo de hilos desconocido: " + hilos);
+        }
+        consumidoresVirtuales = hilos.equals("virtuales");
+        productoresVirtuales = consumidoresVirtuales && opciones.containsKey("productoresVirtuales");
+        
+        // Criba de primos compartida (--criba=limite, --cachePrimos=entradas para valores mayores)
+        int cachePrimos = Integer.parseInt(opciones.getOrDefault("cachePrimos", "0"));
+        if (cachePrimos < 0 || cachePrimos > Primalidad.CACHE_MAXIMA) {
+            throw new IllegalArgumentException("--cachePrimos debe estar entre 0 (sin caché) y "
+                + Primalidad.CACHE_MAXIMA + ": " + cachePrimos);
+        }
+        Primalidad.configurar(
+            Integer.parseInt(opciones.getOrDefault("criba", String.valueOf(Primalidad.LIMITE_POR_DEFECTO))),
+            cachePrimos);
+        
+        // Crear buffer compartido con el motor elegido (--buffer=semaforos|anillo)
+        buffer = crearBuffer(opciones.getOrDefault("buffer", "semaforos"), tamanoBuffer, capacidadMaxima);
+        
+        // Nivel en disco para lo que no cabe en memoria (--desborde, --desbordeDir=directorio)
+        if (opciones.containsKey("desborde")) {
+            Path directorio = opciones.containsKey("desbordeDir")
+                ? Paths.get(opciones.get("desbordeDir"))
+                : Paths.get(System.getProperty("java.io.tmpdir"), "productorconsumidor-desborde");
+            try {
+                desborde = new BufferDesborde(buffer, directorio);
+                buffer = desborde;
+            } catch (IOException e) {
+                System.err.println("No se pudo crear el desborde a disco: " + e.getMessage());
+            }
+        }
+        
+        // Qué hace un productor con el buffer lleno (--politica, --esperaMaxima=ms para limite)
+        String politica = opciones.getOrDefault("politica", "bloquear");
+        if (!politica.equals("bloquear")) {
+            buffer = new BufferConPolitica(buffer, politica,
+                Long.parseLong(opciones.getOrDefault("esperaMaxima", "100")), TimeUnit.MILLISECONDS);
+        }
+        
+        // Latencias y contención del buffer por JMX (--metricas), con un informe
+        // periódico en la salida estándar si se indica --informe=segundos. La
+        // capacidad adaptativa también las usa para conocer las esperas.
+        int segundosInforme = Integer.parseInt(opciones.getOrDefault("informe", "0"));
+        boolean publicarMetricas = opciones.containsKey("metricas") || segundosInforme > 0;
+        if (publicarMetricas || capacidadAdaptativa) {
+            metricasBuffer = new MetricasBuffer(buffer);
+            buffer.instrumentar(metricasBuffer);
+        }
+        if (publicarMetricas) {
+            metricasBuffer.registrarMBean();
+            if (segundosInforme > 0) {
+                metricasBuffer.iniciarInformes(segundosInforme, System.out::println);
+            }
+        }
+        
+        // Ajuste de la capacidad según ocupación y esperas, cada --ajuste=ms
+        if (capacidadAdaptativa) {
+            ajusteCapacidad = new AjusteCapacidad(buffer, metricasBuffer, capacidadMinima, capacidadMaxima,
+                Long.parseLong(opciones.getOrDefault("ajuste", "500")));
+            ajusteCapacidad.iniciar();
+        }
+        
+        agregados = AgregadoCategoria.porTipo();
+        
+        // Punto de control cada --puntoControl=segundos en --puntoControlArchivo,
+        // y reanudación desde el último guardado con --reanudar
+        int segundosPuntoControl = Integer.parseInt(opciones.getOrDefault("puntoControl", "0"));
+        if (segundosPuntoControl > 0 || opciones.containsKey("reanudar")) {
+            puntoControl = new PuntoControl(Paths.get(opciones.getOrDefault("puntoControlArchivo", archivoNumeros + ".pc")),
+                ProductorConsumidorSemaforos::capturarEstado);
+        }
+        if (opciones.containsKey("reanudar")) {
+            reanudacion = leerPuntoControl();
+        }
+        
+        // Crear la animación, o solo métricas y sin esperas en modo --headless
+        boolean headless = opciones.containsKey("headless");
+        ObservadorMetricas metricas = null;
+        if (headless) {
+            metricas = new ObservadorMetricas(Boolean.parseBoolean(opciones.getOrDefault("verbose", "false")));
+            observador = metricas;
+        } else {
+            animacion = new Animacion(numConsumidores, Integer.parseInt(opciones.getOrDefault("muestreo", "1")), agregados);
+            observador = animacion;
+        }
+        
+        // Crear productores
+        productores = new ArrayList<>();
+        threadsProductores = new ArrayList<>();
+        crearProductores();
+        
+        // Crear consumidores
+        consumidores = new ArrayList<>();
+        threadsConsumidores = new ArrayList<>();
+        crearConsumidores();
+        reanudacion = null;
+        
+        // Iniciar todos los hilos
+        long inicio = System.nanoTime();
+        iniciarProductores();
+        iniciarConsumidores();
+        if (segundosPuntoControl > 0) {
+            puntoControl.iniciar(segundosPuntoControl);
+        }
+        
+        if (headless) {
+            ejecutarSinInterfaz(metricas, inicio);
+            return;
+        }
+        
+        // Configurar apagado adecuado
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Deteniendo todos los hilos...");
+            try {
+                detenerHilos();
+            } catch (InterruptedException e) {
+                System.err.println("Error al detener hilos: " + e.getMessage());
+            }
+        }));
+    }
+    
+    /**
+     * Lee el punto de control del que reanudar y restaura los agregados por
+     * tipo. Devuelve null, para empezar desde el principio, si no hay uno o no
+     * corresponde a esta configuración.
+     */
+    private static PuntoControl.Estado leerPuntoControl() {
+        if (!puntoControl.existe()) {
+            System.out.println("No hay punto de control; se empieza desde el principio");
+            return null;
+        }
+        PuntoControl.Estado estado;
+        try {
+            estado = puntoControl.leer();
+        } catch (IOException e) {
+            System.err.println("No se pudo leer el punto de control: " + e.getMessage());
+            return null;
+        }
+        if (!fuente.equals("archivo") && !fuente.equals("seguimiento")) {
+            System.err.println("La fuente " + fuente + " no admite reanudar; se empieza desde el principio");
+            return null;
+        }
+        // Un archivo seguido solo puede haber crecido
+        long tamanoActual = new File(archivoNumeros).length();
+        if (fuente.equals("archivo") ? estado.getTamanoArchivo() != tamanoActual
+                                     : estado.getTamanoArchivo() > tamanoActual) {
+            System.err.println("El archivo " + archivoNumeros + " cambió desde el punto de control; se empieza desde el principio");
+            return null;
+        }
+        if (estado.getSumas().length != numConsumidores) {
+            System.err.println("El punto de control es de " + estado.getSumas().length
+                + " consumidores; se empieza desde el principio");
+            return null;
+        }
+        for (AgregadoCategoria.Resumen resumen : estado.getAgregados()) {
+            agregados.get(resumen.getTipo()).restaurar(resumen);
+        }
+        System.out.println("Reanudando desde el punto de control con " + estado.getPendientes().length
+            + " productos en el buffer");
+        return estado;
+    }
+    
+    /**
+     * Estado para el punto de control; se llama con productores y consumidores detenidos
+     */
+    private static PuntoControl.Estado capturarEstado() {
+        long[] posiciones = new long[productores.size()];
+        long[] fines = new long[productores.size()];
+        for (int i = 0; i < posiciones.length; i++) {
+            posiciones[i] = productores.get(i).getPosicionEntregada();
+            fines[i] = productores.get(i).getFin();
+        }
+        long[] sumas = new long[consumidores.size()];
+        for (int i = 0; i < sumas.length; i++) {
+            sumas[i] = consumidores.get(i).getSuma();
+        }
+        AgregadoCategoria.Resumen[] resumenes = new AgregadoCategoria.Resumen[agregados.size()];
+        int i = 0;
+        for (AgregadoCategoria agregado : agregados.values()) {
+            resumenes[i++] = agregado.instantanea();
+        }
+        return new PuntoControl.Estado(new File(archivoNumeros).length(), posiciones, fines, sumas,
+            resumenes, buffer.copiarPendientes());
+    }
+    
+    /**
+     * Crea los productores según la fuente. Las fuentes de flujo tienen un
+     * solo productor; la sintética reparte la cantidad entre todos.
+     */
+    private static void crearProductores() {
+        clasificacion = clasificadores > 0
+            ? new ClasificacionParalela(buffer, clasificadores, capacidadEtapas, tamanoLote, clasificacionOrdenada,
+                                        hilosEntrega > 0 ? hilosEntrega : numProductores)
+            : null;
+        AtomicInteger unico = new AtomicInteger(1);
+        Path ruta = Paths.get(archivoNumeros);
+        switch (fuente) {
+            case "archivo":
+                crearProductoresArchivo();
+                break;
+            case "entrada":
+                // System.in no se cierra, para poder seguir leyéndolo tras un reinicio
+                agregarProductor(new Productor(buffer, () -> new LectorFlujo(new FilterInputStream(System.in) {
+                    @Override
+                    public void close() {
+                    }
+                }, 0), observador, tamanoLote, 0, unico), 0);
+                break;
+            case "tuberia":
+                // FileInputStream y no Files.newInputStream: su available() funciona en tuberías
+                agregarProductor(new Productor(buffer, () -> new LectorFlujo(new FileInputStream(archivoNumeros), 0),
+                    observador, tamanoLote, 0, unico), 0);
+                break;
+            case "seguimiento":
+                long inicio = reanudacion != null ? reanudacion.getPosiciones()[0] : 0;
+                Productor seguidor = new Productor(buffer,
+                    () -> new LectorFlujo(new LectorFlujo.Seguimiento(ruta, esperaSeguimiento), inicio),
+                    observador, tamanoLote, inicio, unico);
+                if (reanudacion != null) {
+                    seguidor.setPendientes(reanudacion.getPendientes());
+                }
+                agregarProductor(seguidor, 0);
+                break;
+            case "sintetica":
+                // Cada productor genera su parte con un generador derivado de la semilla
+                SplittableRandom raiz = new SplittableRandom(semillaSintetica);
+                AtomicInteger productoresActivos = new AtomicInteger(numProductores);
+                for (int i = 0; i < numProductores; i++) {
+                    SplittableRandom aleatorio = raiz.split();
+                    long parte = cantidadSintetica == 0 ? Long.MAX_VALUE
+                        : cantidadSintetica / numProductores + (i < cantidadSintetica % numProductores ? 1 : 0);
+                    agregarProductor(new Productor(buffer, () -> new LectorSintetico(generadorSintetico, aleatorio, parte),
+                        observador, tamanoLote, 0, productoresActivos), i);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Fuente desconocida: " + fuente);
+        }
+    }
+    
+    /**
+     * Con más de un productor, el archivo se divide en tramos alineados a
+     * inicios de línea y cada productor lee el suyo. Al reanudar, cada
+     * productor sigue su tramo desde la posición guardada y el primero vuelve
+     * a poner en el buffer lo que había en él.
+     */
+    private static void crearProductoresArchivo() {
+        if (reanudacion != null) {
+            long[] posiciones = reanudacion.getPosiciones();
+            AtomicInteger productoresActivos = new AtomicInteger(posiciones.length);
+            for (int i = 0; i < posiciones.length; i++) {
+                Productor productor = new Productor(buffer, archivoNumeros, observador, tamanoLote,
+                    posiciones[i], reanudacion.getFines()[i], productoresActivos);
+                if (i == 0) {
+                    productor.setPendientes(reanudacion.getPendientes());
+                }
+                agregarProductor(productor, i);
+            }
+            return;
+        }
+        
+        long[] limites = {0, Long.MAX_VALUE};
+        if (numProductores > 1) {
+            try {
+                limites = LectorProductos.dividir(Paths.get(archivoNumeros), numProductores);
+            } catch (IOException e) {
+                // El productor único informará el error al intentar leer el archivo
+                System.err.println("No se pudo dividir el archivo: " + e.getMessage());
+            }
+        }
+        
+        int cantidad = limites.length - 1;
+        AtomicInteger productoresActivos = new AtomicInteger(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Productor productor = new Productor(buffer, archivoNumeros, observador, tamanoLote,
+                limites[i], limites[i + 1], productoresActivos);
+            agregarProductor(productor, i);
+        }
+    }
+    
+    private static void agregarProductor(Productor productor, int i) {
+        productor.setPuntoControl(puntoControl);
+        productor.setClasificacion(clasificacion);
+        productores.add(productor);
+        threadsProductores.add(crearHilo(productor, productoresVirtuales, "productor-" + i));
+    }
+    
+    /**
+     * Crea los consumidores, repartidos por turnos entre los tres tipos
+     */
+    private static void crearConsumidores() {
+        for (int i = 0; i < numConsumidores; i++) {
+            String tipo;
+            if (i % 3 == 0) tipo = "par";
+            else if (i % 3 == 1) tipo = "impar";
+            else tipo = "primo";
+            
+            Consumidor consumidor = new Consumidor(buffer, tipo, i, observador, tamanoLote, agregados.get(tipo));
+            consumidor.setPuntoControl(puntoControl);
+            if (reanudacion != null) {
+                consumidor.restaurarSuma(reanudacion.getSumas()[i]);
+            }
+            consumidores.add(consumidor);
+            if (paralelismoConsumo == 0) {
+                threadsConsumidores.add(crearHilo(consumidor, consumidoresVirtuales, "consumidor-" + i));
+            }
+        }
+    }
+    
+    /**
+     * Inicia los hilos de los productores y, si las hay, las etapas de clasificación y entrega
+     */
+    private static void iniciarProductores() {
+        if (clasificacion != null) {
+            clasificacion.iniciar();
+        }
+        for (Thread t : threadsProductores) {
+            t.start();
+        }
+    }
+    
+    /**
+     * Inicia los hilos de los consumidores o el pool que los ejecuta
+     */
+    private static void iniciarConsumidores() {
+        if (paralelismoConsumo > 0) {
+            poolConsumidores = new PoolConsumidores(consumidores, observador, paralelismoConsumo);
+            poolConsumidores.iniciar();
+        }
+        for (Thread t : threadsConsumidores) {
+            t.start();
+        }
+    }
+    
+    /**
+     * Detiene productores y consumidores. Cerrar el buffer despierta a los que
+     * esperan en él y la interrupción a los que están en pausa o en un delay,
+     * así que todos terminan en milisegundos; el límite de espera solo evita
+     * bloquear el reinicio si alguno no responde.
+     */
+    private static void detenerHilos() throws InterruptedException {
+        for (Productor p : productores) {
+            p.detener();
+        }
+        for (Consumidor c : consumidores) {
+            c.detener();
+        }
+        buffer.cerrar();
+        for (Thread t : threadsProductores) {
+            t.interrupt();
+        }
+        for (Thread t : threadsConsumidores) {
+            t.interrupt();
+        }
+        
+        if (poolConsumidores != null) {
+            poolConsumidores.detener(ESPERA_DETENCION_MS);
+            poolConsumidores = null;
+        }
+        for (Thread t : threadsProductores) {
+            t.join(ESPERA_DETENCION_MS);
+        }
+        if (clasificacion != null) {
+            clasificacion.detener(ESPERA_DETENCION_MS);
+            clasificacion = null;
+        }
+        for (Thread t : threadsConsumidores) {
+            t.join(ESPERA_DETENCION_MS);
+        }
+    }
+    
+    /**
+     * Crea un hilo sin iniciar. Los hilos virtuales permiten miles de consumidores
+     * bloqueados en el buffer sin ocupar un hilo del sistema operativo cada uno.
+     */
+    private static Thread crearHilo(Runnable tarea, boolean virtual, String nombre) {
+        if (virtual) {
+            return Thread.ofVirtual().name(nombre).unstarted(tarea);
+        }
+        return new Thread(tarea, nombre);
+    }
+    
+    /**
+     * En modo sin interfaz espera a que los productores terminen y cierra el buffer;
+     * los consumidores vacían lo que queda de su tipo y terminan. Luego muestra el
+     * resumen de rendimiento.
+     */
+    private static void ejecutarSinInterfaz(ObservadorMetricas metricas, long inicio) {
+        try {
+            for (Thread t : threadsProductores) {
+                t.join();
+            }
+            if (clasificacion != null) {
+                clasificacion.terminar(); // Entregar los lotes que siguen en las etapas
+            }
+            buffer.cerrar();
+            for (Thread t : threadsConsumidores) {
+                t.join();
+            }
+            if (poolConsumidores != null) {
+                poolConsumidores.esperarFin();
+            }
+            long transcurrido = System.nanoTime() - inicio;
+            if (puntoControl != null) {
+                // Archivo procesado completo: ya no hay nada que reanudar
+                puntoControl.detener();
+                try {
+                    puntoControl.borrar();
+                } catch (IOException e) {
+                    System.err.println("No se pudo borrar el punto de control: " + e.getMessage());
+                }
+            }
+            
+            for (AgregadoCategoria agregado : agregados.values()) {
+                System.out.println(agregado.instantanea());
+            }
+            if (metricasBuffer != null) {
+                System.out.println(metricasBuffer.getInforme());
+            } else if (!buffer.getDescartados().isEmpty()) {
+                System.out.println("Descartados: " + buffer.getDescartados());
+            }
+            if (desborde != null) {
+                System.out.println("Desbordados a disco: " + desborde.getDesbordados());
+            }
+            if (ajusteCapacidad != null) {
+                System.out.println("Capacidad final: " + buffer.getCapacidad() + " (ajustes: " + ajusteCapacidad.getAjustes() + ")");
+            }
+            System.out.println(metricas.resumen(transcurrido));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Interpreta los argumentos de la forma --clave=valor
+     */
+    static Map<String, String> leerOpciones(String[] args) {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                System.err.println("Argumento ignorado: " + arg);
+                continue;
+            }
+            int igual = arg.indexOf('=');
+            if (igual < 0) {
+                opciones.put(arg.substring(2), "true");
+            } else {
+                opciones.put(arg.substring(2, igual), arg.substring(igual + 1));
+            }
+        }
+        return opciones;
+    }
+    
+    /**
+     * Crea el motor de buffer indicado, con ranuras para crecer hasta capacidadMaxima
+     */
+    private static BufferCompartido crearBuffer(String motor, int capacidad, int capacidadMaxima) {
+        switch (motor) {
+            case "semaforos":
+                return new BufferSemaforos(capacidad, capacidadMaxima);
+            case "anillo":
+                return new BufferAnillo(capacidad, capacidadMaxima);
+            default:
+                throw new IllegalArgumentException("Motor de buffer desconocido: " + motor);
+        }
+    }
+    
+    public static void reiniciarSimulacion() {
+        // Este método sería llamado por el botón de reinicio
+        EventosJfr.Reinicio evento = new EventosJfr.Reinicio();
+        evento.begin();
+        // Sin puntos de control mientras se recrean los hilos
+        if (puntoControl != null) {
+            puntoControl.pausar();
+        }
+        try {
+            // Detener los hilos actuales y esperar a que terminen
+            detenerHilos();
+            
+            // Limpiar buffer (también lo vuelve a abrir) y las estadísticas por tipo
+            buffer.limpiar();
+            for (AgregadoCategoria agregado : agregados.values()) {
+                agregado.reiniciar();
+            }
+            
+            // Con puntos de control se sigue desde el último guardado
+            if (puntoControl != null) {
+                reanudacion = leerPuntoControl();
+            }
+            
+            // Crear nuevos hilos
+            productores.clear();
+            threadsProductores.clear();
+            crearProductores();
+            
+            consumidores.clear();
+            threadsConsumidores.clear();
+            crearConsumidores();
+            reanudacion = null;
+            
+            // Iniciar nuevos hilos
+            iniciarProductores();
+            iniciarConsumidores();
+            
+            evento.productores = productores.size();
+            evento.consumidores = consumidores.size();
+            evento.commit();
+        } catch (InterruptedException e) {
+            System.err.println("Error al reiniciar simulación: " + e.getMessage());
+        } finally {
+            if (puntoControl != null) {
+                puntoControl.continuar();
+            }
+        }
+    }
+}
\ No newline at end of file
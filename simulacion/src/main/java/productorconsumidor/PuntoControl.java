@@ -0,0 +1,368 @@
+package productorconsumidor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Puntos de control periódicos de la simulación: posición de cada productor en
+ * el archivo, suma de cada consumidor, agregados por tipo y productos que
+ * esperan en el buffer. Al reanudar desde uno no se vuelve a procesar lo que
+ * ya se había consumido.
+ *
+ * Para que el estado sea consistente, el punto de control detiene primero a los
+ * productores entre un lote entregado y el siguiente, y luego a los consumidores
+ * entre un lote procesado y la siguiente toma. Los consumidores siguen vaciando
+ * el buffer mientras los productores se detienen, así que ningún productor queda
+ * bloqueado en un buffer lleno. Cada hilo anuncia con un contador que está a
+ * mitad de una operación; sin punto de control en curso eso es un incremento y
+ * un decremento. La detención dura lo que tarda copiar el estado; el archivo se
+ * escribe con los hilos ya reanudados.
+ */
+class PuntoControl {
+    private static final int MAGIA = 0x50435054; // "PCPT"
+    private static final int VERSION = 1;
+    // Si un hilo no llega a detenerse en este tiempo (por ejemplo, con la
+    // simulación pausada), el punto de control se omite
+    private static final long ESPERA_DETENCION_MS = 5000;
+
+    private final Path archivo;
+    private final Supplier<Estado> captura;
+
+    private final AtomicInteger productoresEnCurso = new AtomicInteger();
+    private final AtomicInteger consumidoresEnCurso = new AtomicInteger();
+    private volatile boolean detenerProductores;
+    private volatile boolean detenerConsumidores;
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private final Condition reanudados = cerrojo.newCondition();
+
+    // Lo toma guardar, y pausar para que no se guarde mientras se recrean los hilos
+    private final ReentrantLock cerrojoGuardado = new ReentrantLock();
+    private ScheduledExecutorService ejecutor;
+
+    /**
+     * @param captura arma el estado; se llama con productores y consumidores detenidos
+     */
+    public PuntoControl(Path archivo, Supplier<Estado> captura) {
+        this.archivo = archivo;
+        this.captura = captura;
+    }
+
+    /**
+     * Guarda un punto de control cada tantos segundos desde un hilo demonio
+     */
+    public synchronized void iniciar(int segundos) {
+        if (ejecutor != null) {
+            return;
+        }
+        ejecutor = Planificador.demonio("punto-control");
+        ejecutor.scheduleWithFixedDelay(this::guardar, segundos, segundos, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Deja de guardar y espera a que termine el punto de control en curso
+     */
+    public synchronized void detener() throws InterruptedException {
+        if (ejecutor != null) {
+            ejecutor.shutdown();
+            ejecutor.awaitTermination(ESPERA_DETENCION_MS, TimeUnit.MILLISECONDS);
+            ejecutor = null;
+        }
+    }
+
+    /**
+     * Impide guardar hasta {@link #continuar()}; espera al punto de control en curso
+     */
+    public void pausar() {
+        cerrojoGuardado.lock();
+    }
+
+    public void continuar() {
+        cerrojoGuardado.unlock();
+    }
+
+    /**
+     * Lo llama un productor antes de empezar un lote. Espera si hay un punto de
+     * control en curso.
+     */
+    public void entrarProductor() throws InterruptedException {
+        while (true) {
+            productoresEnCurso.incrementAndGet();
+            if (!detenerProductores) {
+                return;
+            }
+            productoresEnCurso.decrementAndGet();
+            cerrojo.lock();
+            try {
+                while (detenerProductores) {
+                    reanudados.await();
+                }
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+    }
+
+    /**
+     * Lo llama el productor cuando el lote quedó en el buffer y su posición registrada
+     */
+    public void salirProductor() {
+        productoresEnCurso.decrementAndGet();
+    }
+
+    /**
+     * Lo llama un consumidor antes de tomar productos. Con un punto de control
+     * en curso espera a lo sumo esperaMs y devuelve false sin entrar.
+     */
+    public boolean entrarConsumidor(long esperaMs) throws InterruptedException {
+        if (intentarEntrarConsumidor()) {
+            return true;
+        }
+        long restante = TimeUnit.MILLISECONDS.toNanos(esperaMs);
+        cerrojo.lock();
+        try {
+            while (detenerConsumidores && restante > 0) {
+                restante = reanudados.awaitNanos(restante);
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+        return false;
+    }
+
+    /**
+     * Como {@link #entrarConsumidor(long)} pero sin esperar
+     */
+    public boolean intentarEntrarConsumidor() {
+        consumidoresEnCurso.incrementAndGet();
+        if (!detenerConsumidores) {
+            return true;
+        }
+        consumidoresEnCurso.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * Lo llama el consumidor después de procesar lo que tomó, o si no tomó nada
+     */
+    public void salirConsumidor() {
+        consumidoresEnCurso.decrementAndGet();
+    }
+
+    /**
+     * Detiene los hilos, captura el estado, los reanuda y lo escribe
+     *
+     * @return false si no se guardó
+     */
+    public boolean guardar() {
+        if (!cerrojoGuardado.tryLock()) {
+            return false;
+        }
+        try {
+            Estado estado;
+            try {
+                detenerProductores = true;
+                if (!esperarDetencion(productoresEnCurso)) {
+                    return false;
+                }
+                detenerConsumidores = true;
+                if (!esperarDetencion(consumidoresEnCurso)) {
+                    return false;
+                }
+                estado = captura.get();
+            } finally {
+                reanudar();
+            }
+            escribir(estado);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar el punto de control: " + e.getMessage());
+            return false;
+        } finally {
+            cerrojoGuardado.unlock();
+        }
+    }
+
+    private static boolean esperarDetencion(AtomicInteger enCurso) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ESPERA_DETENCION_MS);
+        while (enCurso.get() > 0) {
+            if (System.nanoTime() - limite > 0) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    private void reanudar() {
+        cerrojo.lock();
+        try {
+            detenerProductores = false;
+            detenerConsumidores = false;
+            reanudados.signalAll();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Escribe en un archivo temporal y lo renombra, para que un fallo a mitad
+     * de la escritura no deje un punto de control incompleto
+     */
+    void escribir(Estado estado) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            salida.writeInt(MAGIA);
+            salida.writeInt(VERSION);
+            salida.writeLong(estado.tamanoArchivo);
+            salida.writeInt(estado.posiciones.length);
+            for (int i = 0; i < estado.posiciones.length; i++) {
+                salida.writeLong(estado.posiciones[i]);
+                salida.writeLong(estado.fines[i]);
+            }
+            escribirLongs(salida, estado.sumas);
+            salida.writeInt(estado.agregados.length);
+            for (AgregadoCategoria.Resumen resumen : estado.agregados) {
+                salida.writeUTF(resumen.getTipo());
+                salida.writeLong(resumen.getCantidad());
+                salida.writeLong(resumen.getSuma());
+                salida.writeLong(resumen.getMinimo());
+                salida.writeLong(resumen.getMaximo());
+                for (int i = 0; i < AgregadoCategoria.CUBETAS; i++) {
+                    salida.writeLong(resumen.getCubeta(i));
+                }
+            }
+            escribirLongs(salida, estado.pendientes);
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Lee el último punto de control guardado
+     */
+    public Estado leer() throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+            if (entrada.readInt() != MAGIA || entrada.readInt() != VERSION) {
+                throw new IOException("Formato de punto de control desconocido: " + archivo);
+            }
+            long tamanoArchivo = entrada.readLong();
+            int productores = entrada.readInt();
+            long[] posiciones = new long[productores];
+            long[] fines = new long[productores];
+            for (int i = 0; i < productores; i++) {
+                posiciones[i] = entrada.readLong();
+                fines[i] = entrada.readLong();
+            }
+            long[] sumas = leerLongs(entrada);
+            AgregadoCategoria.Resumen[] agregados = new AgregadoCategoria.Resumen[entrada.readInt()];
+            for (int i = 0; i < agregados.length; i++) {
+                String tipo = entrada.readUTF();
+                long cantidad = entrada.readLong();
+                long suma = entrada.readLong();
+                long minimo = entrada.readLong();
+                long maximo = entrada.readLong();
+                long[] cubetas = new long[AgregadoCategoria.CUBETAS];
+                for (int j = 0; j < cubetas.length; j++) {
+                    cubetas[j] = entrada.readLong();
+                }
+                agregados[i] = new AgregadoCategoria.Resumen(tipo, cantidad, suma, minimo, maximo, cubetas);
+            }
+            long[] pendientes = leerLongs(entrada);
+            return new Estado(tamanoArchivo, posiciones, fines, sumas, agregados, pendientes);
+        }
+    }
+
+    public boolean existe() {
+        return Files.isRegularFile(archivo);
+    }
+
+    /**
+     * Borra el punto de control, por ejemplo cuando se terminó de procesar el archivo
+     */
+    public void borrar() throws IOException {
+        Files.deleteIfExists(archivo);
+    }
+
+    private static void escribirLongs(DataOutputStream salida, long[] valores) throws IOException {
+        salida.writeInt(valores.length);
+        for (long valor : valores) {
+            salida.writeLong(valor);
+        }
+    }
+
+    private static long[] leerLongs(DataInputStream entrada) throws IOException {
+        long[] valores = new long[entrada.readInt()];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = entrada.readLong();
+        }
+        return valores;
+    }
+
+    /**
+     * Estado de la simulación en un punto de control
+     */
+    static final class Estado {
+        private final long tamanoArchivo;
+        private final long[] posiciones;
+        private final long[] fines;
+        private final long[] sumas;
+        private final AgregadoCategoria.Resumen[] agregados;
+        private final long[] pendientes;
+
+        /**
+         * @param tamanoArchivo tamaño del archivo de entrada, para detectar si cambió
+         * @param posiciones    byte siguiente al último número entregado por cada productor
+         * @param fines         fin del tramo de cada productor
+         * @param sumas         suma de cada consumidor, por identificador
+         * @param agregados     agregados por tipo
+         * @param pendientes    productos en el buffer (ver {@link BufferCompartido#copiarPendientes()})
+         */
+        Estado(long tamanoArchivo, long[] posiciones, long[] fines, long[] sumas,
+               AgregadoCategoria.Resumen[] agregados, long[] pendientes) {
+            this.tamanoArchivo = tamanoArchivo;
+            this.posiciones = posiciones;
+            this.fines = fines;
+            this.sumas = sumas;
+            this.agregados = agregados;
+            this.pendientes = pendientes;
+        }
+
+        public long getTamanoArchivo() {
+            return tamanoArchivo;
+        }
+
+        public long[] getPosiciones() {
+            return posiciones;
+        }
+
+        public long[] getFines() {
+            return fines;
+        }
+
+        public long[] getSumas() {
+            return sumas;
+        }
+
+        public AgregadoCategoria.Resumen[] getAgregados() {
+            return agregados;
+        }
+
+        public long[] getPendientes() {
+            return pendientes;
+        }
+    }
+}